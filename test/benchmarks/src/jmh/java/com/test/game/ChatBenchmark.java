@@ -0,0 +1,73 @@
+package com.test.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One chat message arriving after {@code history} others, without a window. {@link ChatLog} keeps the newest 200
+ * lines and lays out only the new one; the TextArea it replaced copied its whole text into a longer string and
+ * wrapped all of it again, which {@code textArea} imitates with the same fixed glyph width.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatBenchmark {
+    private static final int WRAP_CHARS = 28; // what fits in the 200 px chat pane
+    private static final float LINE_HEIGHT = 18;
+    private static final String[] MESSAGES = {
+        "alice: anyone up for another round?",
+        "bob: sure",
+        "carol: that word was impossible, who picks ZYZZYVA",
+        "Top players of 340:\n1. alice 1620\n2. bob 1588",
+    };
+
+    @Param({"1000", "10000"})
+    public int history;
+
+    private ChatLog log;
+    private String text;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        log = new ChatLog(200, (slot, line) -> rows(line) * LINE_HEIGHT);
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < history; i++) {
+            log.add(MESSAGES[i % MESSAGES.length]);
+            all.append(MESSAGES[i % MESSAGES.length]).append('\n');
+        }
+        text = all.toString();
+    }
+
+    @Benchmark
+    public int chatLog() {
+        log.add(MESSAGES[next++ % MESSAGES.length]);
+        return log.lineAt(log.height() - 200); // the first line in sight when following the bottom
+    }
+
+    @Benchmark
+    public int textArea() {
+        text = text + MESSAGES[next++ % MESSAGES.length] + "\n";
+        int rows = rows(text);
+        text = text.substring(text.indexOf('\n') + 1); // keep the history at its length, like a steady stream
+        return rows;
+    }
+
+    // Rows a text takes when wrapped at WRAP_CHARS
+    private static int rows(String text) {
+        int rows = 0, column = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' || column == WRAP_CHARS) {
+                rows++;
+                column = 0;
+                if (text.charAt(i) == '\n') continue;
+            }
+            column++;
+        }
+        return column > 0 ? rows + 1 : rows;
+    }
+}
@@ -0,0 +1,113 @@
+package com.test.game;
+
+import com.test.game.net.Message;
+import com.test.game.net.TextCodec;
+import com.test.game.net.WireCodec;
+import com.test.game.server.RecordedRound;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays what one player receives over a round through {@link ClientGame}, the logic behind
+ * GameScreen.handleServerMessage. {@code replay} decodes once in setup and measures only the dispatch;
+ * {@code parse} measures only reading and parsing every line or frame, the encoding side is
+ * {@link com.test.game.net.CodecBenchmark}; {@code receive} reads, parses and passes the messages through an
+ * {@link Inbox} the way GameScreen's network thread hands them to the render thread, all of them in one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    @Param({"text", "binary"})
+    public String protocol;
+
+    @Param({"guesser", "chooser"})
+    public String role;
+
+    private byte[] recorded;
+    private Message[] stream;
+    private final Inbox inbox = new Inbox(256);
+    private final Screen screen = new Screen();
+    private ClientGame game;
+
+    @Setup
+    public void record() throws IOException, InterruptedException {
+        recorded = RecordedRound.record(protocol.equals("binary"), role.equals("chooser"));
+        List<Message> messages = new ArrayList<>();
+        read(messages::add);
+        stream = messages.toArray(new Message[0]);
+        game = new ClientGame(screen);
+        System.out.println(String.format("%n%d messages per round", stream.length));
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(String.format("%nInbox: %s", inbox.stats()));
+    }
+
+    private interface Sink {
+        void accept(Message m) throws InterruptedException;
+    }
+
+    // Reads the recording the way GameScreen reads its socket
+    private void read(Sink to) throws IOException, InterruptedException {
+        boolean binary = protocol.equals("binary");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(recorded));
+        while (in.available() > 0) {
+            to.accept(binary ? WireCodec.readFrame(in) : TextCodec.parse(WireCodec.readLine(in)));
+        }
+    }
+
+    @Benchmark
+    public int replay() {
+        for (Message m : stream) {
+            game.handle(m);
+        }
+        return screen.chars;
+    }
+
+    @Benchmark
+    public int parse() throws IOException, InterruptedException {
+        int[] count = new int[1];
+        read(m -> count[0] += m.type.code);
+        return count[0];
+    }
+
+    @Benchmark
+    public int receive() throws IOException, InterruptedException {
+        read(inbox::offer);
+        inbox.drain(game);
+        return screen.chars;
+    }
+
+    // Counts the characters it is asked to show, so nothing the game formats can be optimized away
+    static final class Screen implements ClientGame.View {
+        int chars;
+
+        @Override public void showName(String text) { chars += text.length(); }
+        @Override public void showRole(String text) { chars += text.length(); }
+        @Override public void showPrompt(String text) { chars += text.length(); }
+        @Override public void showWord(String text) { chars += text.length(); }
+        @Override public void showClue(String text) { chars += text.length(); }
+        @Override public void showStatus(String text) { chars += text.length(); }
+        @Override public void showResult(String text) { chars += text.length(); }
+        @Override public void tintResult(ClientGame.Tone tone) { chars += tone.ordinal(); }
+        @Override public void appendChat(String line) { chars += line.length(); }
+        @Override public void showRank(String text) { chars += text.length(); }
+        @Override public void wrongGuess(int wrongGuesses) { chars += wrongGuesses; }
+        @Override public void hangmanRestored(int wrongGuesses) { chars += wrongGuesses; }
+        @Override public void showWatchOption(boolean visible) { chars++; }
+        @Override public void showBotOption(boolean visible) { chars++; }
+        @Override public void showSpectatorLayout(boolean spectating) { chars++; }
+        @Override public void requestResync() { throw new IllegalStateException("the recorded stream asked for a resync"); }
+    }
+}
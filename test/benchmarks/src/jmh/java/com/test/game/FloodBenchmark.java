@@ -0,0 +1,62 @@
+package com.test.game;
+
+import com.test.game.net.Message;
+import com.test.game.net.TextCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A chat flood reaching the client: every chat line is parsed and handed to the render thread, which takes what
+ * arrived once per frame. {@code inbox} is how GameScreen does it now, through the preallocated {@link Inbox};
+ * {@code postRunnable} is how it used to, one lambda per message on Gdx.app's growing runnable list.
+ * Run with {@code -prof gc}: the difference per message is what the client's collector no longer has to clean up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloodBenchmark {
+    /** Messages arriving between two frames: a flood of 60 lines a frame is 3,600 a second at 60 fps. */
+    private static final int PER_FRAME = 60;
+    private static final String[] LINES = new String[PER_FRAME];
+
+    static {
+        for (int i = 0; i < PER_FRAME; i++) {
+            LINES[i] = TextCodec.CHAT + " [spammer" + i % 7 + "] message number " + i;
+        }
+    }
+
+    private final DispatchBenchmark.Screen screen = new DispatchBenchmark.Screen();
+    private final ClientGame game = new ClientGame(screen);
+    private final Inbox inbox = new Inbox(1024);
+    private final List<Runnable> runnables = new ArrayList<>(); // stands in for Gdx.app's runnable list
+
+    @Benchmark
+    @OperationsPerInvocation(PER_FRAME)
+    public int inbox() throws InterruptedException {
+        for (String line : LINES) {
+            inbox.offer(TextCodec.parse(line));
+        }
+        inbox.drain(game);
+        return screen.chars;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PER_FRAME)
+    public int postRunnable() {
+        for (String line : LINES) {
+            final Message m = TextCodec.parse(line);
+            runnables.add(() -> game.handle(m));
+        }
+        for (Runnable runnable : runnables) {
+            runnable.run();
+        }
+        runnables.clear();
+        return screen.chars;
+    }
+}
@@ -0,0 +1,63 @@
+package com.test.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hangman part of a GameScreen frame without a window: bringing {@link HangmanFigure} up to date and replaying
+ * its segments into a vertex array the way ShapeRenderer fills its buffer. A steady frame, the common case, only
+ * replays; a frame after a wrong guess or a layout change works the segments out again first.
+ * Run with {@code -prof gc} to see the steady frame allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+    private final HangmanFigure figure = new HangmanFigure();
+    private final Vertices vertices = new Vertices();
+    private int frame;
+
+    @Benchmark
+    public int steadyFrame() {
+        figure.update(500, 400, 6, true);
+        return draw();
+    }
+
+    @Benchmark
+    public int changedFrame() {
+        figure.update(500, 400 + (frame++ & 1), 6, true); // the layout moved a pixel
+        return draw();
+    }
+
+    private int draw() {
+        vertices.count = 0;
+        figure.draw(vertices, 0.5f);
+        return vertices.count;
+    }
+
+    // Stands in for ShapeRenderer: two coloured vertices per line into a fixed array
+    static final class Vertices implements HangmanFigure.Pen {
+        final float[] buffer = new float[5000 * 3];
+        int count;
+        private float color;
+
+        @Override
+        public void color(float r, float g, float b, float a) {
+            color = Float.intBitsToFloat(((int) (255 * a) << 24) | ((int) (255 * b) << 16) | ((int) (255 * g) << 8) | (int) (255 * r));
+        }
+
+        @Override
+        public void line(float x1, float y1, float x2, float y2) {
+            buffer[count++] = x1;
+            buffer[count++] = y1;
+            buffer[count++] = color;
+            buffer[count++] = x2;
+            buffer[count++] = y2;
+            buffer[count++] = color;
+        }
+    }
+}
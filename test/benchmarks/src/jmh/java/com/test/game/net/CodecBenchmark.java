@@ -0,0 +1,59 @@
+package com.test.game.net;
+
+import com.test.game.server.RecordedRound;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes what one player receives over a round, recorded from a real room, into text lines or binary frames.
+ * A message keeps its encoded form once it has one, so every invocation clears that first: this is the cost of
+ * the first player a message goes to. Reading the messages back is {@code DispatchBenchmark.parse}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"text", "binary"})
+    public String protocol;
+
+    @Param({"guesser", "chooser"})
+    public String role;
+
+    private Message[] stream;
+
+    @Setup
+    public void record() throws IOException {
+        boolean binary = protocol.equals("binary");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(RecordedRound.record(binary, role.equals("chooser"))));
+        List<Message> messages = new ArrayList<>();
+        while (in.available() > 0) {
+            messages.add(binary ? WireCodec.readFrame(in) : TextCodec.parse(WireCodec.readLine(in)));
+        }
+        stream = messages.toArray(new Message[0]);
+    }
+
+    @Benchmark
+    public int encode() {
+        int bytes = 0;
+        if (protocol.equals("binary")) {
+            for (Message m : stream) {
+                bytes += WireCodec.encode(m).remaining();
+            }
+        } else {
+            for (Message m : stream) {
+                m.line = null;
+                bytes += TextCodec.format(m).length();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,64 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.TextCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A player without a socket: everything the room sends is encoded as usual and then dropped,
+ * or kept when recording. Remembers the last prompt so a benchmark knows what to answer.
+ */
+class BenchPlayer extends ClientHandler {
+    int lastPrompt = -1;
+    private ByteArrayOutputStream recorded; // bytes as they would have gone out, null when not recording
+
+    // A spectator: speaks binary, never names itself
+    BenchPlayer(Lobby lobby) {
+        super(lobby);
+        onLine(TextCodec.OFFER);
+    }
+
+    BenchPlayer(Lobby lobby, String name, boolean binary, ByteArrayOutputStream recorded) {
+        super(lobby);
+        if (binary) onLine(TextCodec.OFFER);
+        this.recorded = recorded; // from the welcome on, the handshake line is not part of the stream
+        onLine(name);
+    }
+
+    @Override
+    public void send(Message m) {
+        if (m.type == MessageType.PROMPT) lastPrompt = m.code;
+        super.send(m);
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) {
+        if (recorded != null) recorded.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    }
+
+    @Override
+    public boolean flush() {
+        return true;
+    }
+
+    @Override
+    public void closeConnection() {
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    protected void abort() {
+    }
+
+    @Override
+    protected long writeStalledSince() {
+        return 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Two {@link BenchPlayer}s seated at a real {@link GameRoom}, playing rounds through the same
+ * {@code onInput} calls the transports make. The lobby never opens rooms on its own.
+ */
+class BenchTable {
+    // Most frequent English letters first, like a bot would guess
+    private static final String GUESSES = "etaoinshrdlucmfwypvbgkjqxz";
+
+    final BenchPlayer first, second;
+    final GameRoom room;
+    private final Lobby lobby;
+
+    BenchTable(boolean binary) {
+        this(binary, null, null);
+    }
+
+    // Records what each player is sent into the given streams, null for none
+    BenchTable(boolean binary, ByteArrayOutputStream firstRecording, ByteArrayOutputStream secondRecording) {
+        lobby = new Lobby(0);
+        first = new BenchPlayer(lobby, "alice", binary, firstRecording);
+        second = new BenchPlayer(lobby, "bob", binary, secondRecording);
+        room = new GameRoom(1, lobby, first, second);
+        room.start();
+    }
+
+    // Spectators follow the room from now on
+    void watch(int spectators) {
+        for (int i = 0; i < spectators; i++) {
+            room.watch(new BenchPlayer(lobby));
+        }
+    }
+
+    // Plays one round to the end and answers yes to playing again, the next round then waits for its secret
+    int playRound(String secret) {
+        BenchPlayer chooser = first.lastPrompt == Message.PROMPT_SECRET ? first : second;
+        BenchPlayer guesser = chooser == first ? second : first;
+        room.onInput(chooser, secret);
+        room.onInput(chooser, "a word");
+        int guesses = 0;
+        while (guesser.lastPrompt != Message.PROMPT_PLAY_AGAIN) {
+            room.onInput(guesser, GUESSES.substring(guesses, ++guesses));
+        }
+        room.onInput(first, "yes");
+        room.onInput(second, "yes");
+        return guesses;
+    }
+}
@@ -0,0 +1,114 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The computer guesser against a list of 500,000 words: its first move, where every word of the length is still
+ * a candidate, and a whole round against secrets from the list. The words are made up from English letter
+ * frequencies and word lengths, which is what the index and the scoring are sensitive to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BotBenchmark {
+    private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+    private static final int[] WEIGHTS = {127, 91, 82, 75, 70, 67, 63, 61, 60, 43, 40, 28, 28, 24, 24, 22, 20, 20, 19, 15, 10, 8, 2, 2, 1, 1};
+    private static final int[] LENGTHS = {3, 4, 4, 5, 5, 5, 6, 6, 6, 7, 7, 7, 8, 8, 8, 9, 9, 10, 10, 11, 12, 13, 14, 15};
+
+    @Param({"500000"})
+    public int words;
+
+    private String[] list;
+    private WordIndex index;
+    private WordIndex.Search search;
+    private RoundState round;
+    private int next = 0;
+    /** Guesses per round over the measured rounds, printed at the end. */
+    private long rounds, moves, solved;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = generate(words);
+        long before = usedHeap();
+        Dictionary.Builder builder = new Dictionary.Builder();
+        for (String word : list) builder.add(word, null);
+        Dictionary dictionary = builder.build();
+        long stored = usedHeap();
+        index = dictionary.index;
+        search = index.search();
+        for (int length = 1; length <= Message.MAX_WORD_LENGTH; length++) search.start(length); // index every length now
+        System.out.println(String.format("%nDictionary of %d words: %.1f MB, index: %.1f MB more",
+                dictionary.size(), (stored - before) / 1e6, (usedHeap() - stored) / 1e6));
+        round = new RoundState();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (rounds > 0) {
+            System.out.println(String.format("%n%.1f guesses per round, %.1f%% of the words found", (double) moves / rounds, 100.0 * solved / rounds));
+        }
+    }
+
+    private static String[] generate(int count) {
+        Random random = new Random(42);
+        int total = 0;
+        for (int weight : WEIGHTS) total += weight;
+        Set<String> unique = new LinkedHashSet<>();
+        while (unique.size() < count) {
+            int length = LENGTHS[random.nextInt(LENGTHS.length)];
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                int pick = random.nextInt(total), c = 0;
+                while ((pick -= WEIGHTS[c]) >= 0) c++;
+                word.append(LETTERS.charAt(c));
+            }
+            unique.add(word.toString());
+        }
+        return unique.toArray(new String[0]);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Nothing known yet: every word of the secret's length is a candidate. */
+    @Benchmark
+    public char firstMove() {
+        String secret = list[next++ % list.length];
+        search.start(secret.length());
+        return search.next();
+    }
+
+    /** A whole round: guess, apply the answer, until the word is found or the chances are gone. */
+    @Benchmark
+    public int round() {
+        String secret = list[next++ % list.length];
+        round.start(secret);
+        search.start(secret.length());
+        int guesses = 0;
+        while (!round.isOver()) {
+            char letter = search.next();
+            if (round.guess(letter) == Message.RESULT_CORRECT) {
+                search.hit(letter, round.positionsOf(letter));
+            } else {
+                search.miss(letter);
+            }
+            guesses++;
+        }
+        rounds++;
+        moves += guesses;
+        if (round.isSolved()) solved++;
+        return guesses;
+    }
+}
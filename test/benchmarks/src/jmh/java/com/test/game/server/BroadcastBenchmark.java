@@ -0,0 +1,35 @@
+package com.test.game.server;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole round as the room plays it: every input fans out to both players and gets encoded for each,
+ * text lines against binary snapshot and deltas. Socket writes are left out, only what the room does is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({"text", "binary"})
+    public String protocol;
+
+    @Param({"hangman", "supercalifragilisticexpialidocious"})
+    public String secret;
+
+    private BenchTable table;
+
+    @Setup
+    public void seat() {
+        table = new BenchTable(protocol.equals("binary"));
+    }
+
+    @Benchmark
+    public int round() {
+        return table.playRound(secret);
+    }
+}
@@ -0,0 +1,50 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What logging one guess costs the room that makes it: a record copied into the memory-mapped segment.
+ * Forcing to disk happens on the log's own thread, so it only shows up here as the occasional segment roll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogBenchmark {
+    private File dir;
+    private EventLog events;
+
+    @Setup
+    public void open() throws IOException {
+        dir = Files.createTempDirectory("hangman-events").toFile();
+        events = new EventLog(dir, 64 << 20, 20);
+    }
+
+    @TearDown
+    public void delete() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public void guess() {
+        events.guessed(1, 'e', Message.RESULT_WRONG);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void guessFromFourRooms() {
+        events.guessed(1, 'e', Message.RESULT_WRONG);
+    }
+}
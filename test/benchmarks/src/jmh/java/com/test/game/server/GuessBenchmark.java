@@ -0,0 +1,65 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full round of guesses against a secret word: the bookkeeping the room used to do on every guess
+ * (scan the word, box the letter, build a String to look for blanks) against {@link RoundState}.
+ * Run with {@code -prof gc} to see the allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuessBenchmark {
+    // Most frequent English letters first, like a bot would guess
+    private static final char[] GUESSES = "etaoinshrdlucmfwypvbgkjqxz".toCharArray();
+
+    @Param({"hangman", "supercalifragilisticexpialidocious"})
+    public String secret;
+
+    @Benchmark
+    public int legacyRound(Blackhole hole) {
+        char[] guessedWord = new char[secret.length()];
+        Arrays.fill(guessedWord, '_');
+        ArrayList<Character> guessedLetters = new ArrayList<>();
+        int remainingChances = Message.ROUND_CHANCES;
+        int guesses = 0;
+        while (remainingChances > 0 && new String(guessedWord).contains("_")) {
+            char letter = GUESSES[guesses++];
+            if (guessedLetters.contains(letter)) continue;
+            guessedLetters.add(letter);
+            boolean found = false;
+            for (int i = 0; i < secret.length(); i++) {
+                if (Character.toLowerCase(secret.charAt(i)) == Character.toLowerCase(letter)) {
+                    guessedWord[i] = secret.charAt(i);
+                    found = true;
+                }
+            }
+            if (!found) remainingChances--;
+            hole.consume(found);
+        }
+        return guesses;
+    }
+
+    // A room keeps its RoundState, so only starting the round is part of the measurement
+    private final RoundState round = new RoundState();
+
+    @Benchmark
+    public int indexedRound(Blackhole hole) {
+        round.start(secret);
+        int guesses = 0;
+        while (!round.isOver()) {
+            hole.consume(round.guess(GUESSES[guesses++]));
+        }
+        return guesses;
+    }
+}
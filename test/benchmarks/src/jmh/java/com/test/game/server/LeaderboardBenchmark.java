@@ -0,0 +1,61 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The leaderboard of a server with a million rated players: where one of them stands, the top ten, and a round
+ * ending, which moves two players on the board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+    @Param({"1000000"})
+    public int players;
+
+    private Ratings ratings;
+    private String[] names;
+    private final Random random = new Random();
+
+    @Setup
+    public void setUp() {
+        Random ratingsRandom = new Random(42);
+        Map<String, int[]> records = new HashMap<>(players * 2);
+        names = new String[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = "player" + i;
+            int rating = Leaderboard.clamp((int) (Ratings.INITIAL + 300 * ratingsRandom.nextGaussian()));
+            records.put(names[i], new int[]{ratingsRandom.nextInt(100), ratingsRandom.nextInt(100), rating});
+        }
+        ratings = new Ratings();
+        long started = System.nanoTime();
+        ratings.load(records);
+        System.out.println(String.format("%nLoaded %d players in %.0f ms", players, (System.nanoTime() - started) / 1e6));
+    }
+
+    @Benchmark
+    public Ratings.Standing standing() {
+        return ratings.standing(names[random.nextInt(players)]);
+    }
+
+    @Benchmark
+    public List<Ratings.Standing> topTen() {
+        return ratings.top(10);
+    }
+
+    @Benchmark
+    public void roundEnded() {
+        ratings.scored(names[random.nextInt(players)], names[random.nextInt(players)],
+                random.nextBoolean() ? Message.GUESSER_WON : Message.GUESSER_LOST);
+    }
+}
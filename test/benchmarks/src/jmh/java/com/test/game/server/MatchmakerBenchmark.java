@@ -0,0 +1,74 @@
+package com.test.game.server;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A player joining the matchmaker, with ratings spread like a real population's, so most joins find an opponent
+ * at once. Rooms cost nothing here: what is measured is queueing, sorting by rating and pairing, alone and with
+ * four threads joining at the same time like a burst arriving on four selector threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchmakerBenchmark {
+    private static final int PLAYERS = 4096;
+
+    private Lobby lobby;
+    private Matchmaker matchmaker;
+    private final LongAdder pairs = new LongAdder(), joins = new LongAdder();
+
+    /** Each thread's own players, joining again every burst: most of them were paired in the one before. */
+    @State(Scope.Thread)
+    public static class Players {
+        final ClientHandler[] players = new ClientHandler[PLAYERS];
+        final int[] ratings = new int[PLAYERS];
+
+        @Setup
+        public void setUp(MatchmakerBenchmark benchmark) {
+            Random random = new Random();
+            for (int i = 0; i < PLAYERS; i++) {
+                players[i] = new BenchPlayer(benchmark.lobby);
+                ratings[i] = (int) (1500 + 300 * random.nextGaussian());
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        lobby = new Lobby(0);
+        matchmaker = new Matchmaker((first, second) -> {
+            pairs.increment();
+            return () -> { };
+        }, lobby.timers);
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(String.format("%n%d joins, %.1f%% of the players paired, %d still waiting",
+                joins.sum(), 200.0 * pairs.sum() / joins.sum(), matchmaker.waiting()));
+    }
+
+    /** Every player of the thread joins once: a burst of {@value #PLAYERS} joins. */
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS)
+    public void burst(Players mine) {
+        for (int i = 0; i < PLAYERS; i++) {
+            matchmaker.join(mine.players[i], mine.ratings[i]);
+        }
+        joins.add(PLAYERS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS)
+    @Threads(4)
+    public void burstFromFourThreads(Players mine) {
+        burst(mine);
+    }
+}
@@ -0,0 +1,24 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * What one player receives over a round and the start of the next, recorded from a real room.
+ * Lets client side benchmarks replay a server stream without running a server.
+ */
+public final class RecordedRound {
+    private RecordedRound() {
+    }
+
+    /** Bytes the chooser or the guesser of a "hangman" round is sent, in text lines or binary frames. */
+    public static byte[] record(boolean binary, boolean chooser) {
+        ByteArrayOutputStream firstBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondBytes = new ByteArrayOutputStream();
+        BenchTable table = new BenchTable(binary, firstBytes, secondBytes);
+        boolean firstChooses = table.first.lastPrompt == Message.PROMPT_SECRET;
+        table.playRound("hangman");
+        return (firstChooses == chooser ? firstBytes : secondBytes).toByteArray();
+    }
+}
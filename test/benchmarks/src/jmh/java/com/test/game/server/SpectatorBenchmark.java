@@ -0,0 +1,33 @@
+package com.test.game.server;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A round of "hangman" between two binary players while spectators watch. Every event is encoded once and
+ * the same frame is queued for each spectator, so the cost per spectator is a queue entry and not an encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpectatorBenchmark {
+    @Param({"0", "10", "1000"})
+    public int spectators;
+
+    private BenchTable table;
+
+    @Setup
+    public void seat() {
+        table = new BenchTable(true);
+        table.watch(spectators);
+    }
+
+    @Benchmark
+    public int round() {
+        return table.playRound("hangman");
+    }
+}
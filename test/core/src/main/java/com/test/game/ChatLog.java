@@ -0,0 +1,101 @@
+package com.test.game;
+
+/**
+ * The chat lines a client keeps: a ring of the newest {@code capacity} lines, the oldest dropped first.
+ * Each line is laid out once when it arrives and remembers where it starts, so adding a line costs the same
+ * however long the history, and finding the lines in sight is a binary search over the ring.
+ * Plain Java without LibGDX: {@link ChatView} lays lines out with a BitmapFont, benchmarks with a fixed glyph width.
+ */
+public final class ChatLog {
+    // Lays one line out into the storage of a ring slot, which it may reuse, and returns the line's height
+    public interface Layout {
+        float layout(int slot, String text);
+    }
+
+    private final Layout layout;
+    private final String[] texts;
+    private final float[] heights;
+    private final double[] tops; // per slot: heights of every line added before it, also the dropped ones
+    private int first, size; // ring position of the oldest line kept, and how many are kept
+    private double total; // heights of every line ever added
+
+    public ChatLog(int capacity, Layout layout) {
+        this.layout = layout;
+        texts = new String[capacity];
+        heights = new float[capacity];
+        tops = new double[capacity];
+    }
+
+    public int capacity() {
+        return texts.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds a line at the bottom, dropping the oldest once full
+    public void add(String text) {
+        int slot;
+        if (size < texts.length) {
+            slot = (first + size) % texts.length;
+            size++;
+        } else {
+            slot = first;
+            first = (first + 1) % texts.length;
+        }
+        texts[slot] = text;
+        heights[slot] = layout.layout(slot, text);
+        tops[slot] = total;
+        total += heights[slot];
+    }
+
+    // Lays every kept line out again, after the width changed
+    public void relayout() {
+        double top = size == 0 ? total : tops[first];
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            heights[slot] = layout.layout(slot, texts[slot]);
+            tops[slot] = top;
+            top += heights[slot];
+        }
+        total = top;
+    }
+
+    // Height of the lines kept
+    public float height() {
+        return size == 0 ? 0 : (float) (total - tops[first]);
+    }
+
+    // Ring slot of the i-th line kept, 0 the oldest
+    public int slot(int i) {
+        return (first + i) % texts.length;
+    }
+
+    public String text(int i) {
+        return texts[slot(i)];
+    }
+
+    // Distance from the top of the oldest line kept down to the top of the i-th
+    public float top(int i) {
+        return (float) (tops[slot(i)] - tops[first]);
+    }
+
+    public float lineHeight(int i) {
+        return heights[slot(i)];
+    }
+
+    // The line at this distance from the top, the last one past the bottom
+    public int lineAt(float y) {
+        int low = 0, high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (top(mid) <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
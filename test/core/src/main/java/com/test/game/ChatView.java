@@ -0,0 +1,78 @@
+package com.test.game;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.scenes.scene2d.utils.Cullable;
+import com.badlogic.gdx.utils.Align;
+
+/**
+ * Read-only chat history for a ScrollPane, in place of a TextArea that grows forever and lays its whole text out
+ * again on every append. Lines live in a {@link ChatLog}: each one is wrapped once into its own GlyphLayout, which
+ * the line that later takes its slot reuses, and only the lines inside the ScrollPane's culling area are drawn.
+ */
+public class ChatView extends Widget implements Cullable {
+    private final BitmapFont font;
+    private final Color color;
+    private final GlyphLayout[] layouts;
+    private final ChatLog log;
+    private float wrapWidth = 0; // width the lines are wrapped at, 0 before the first layout: not wrapped
+    private Rectangle cullingArea;
+
+    public ChatView(BitmapFont font, Color color, int capacity) {
+        this.font = font;
+        this.color = new Color(color);
+        layouts = new GlyphLayout[capacity];
+        for (int i = 0; i < capacity; i++) layouts[i] = new GlyphLayout();
+        log = new ChatLog(capacity, this::layoutLine);
+    }
+
+    private float layoutLine(int slot, String text) {
+        layouts[slot].setText(font, text, color, wrapWidth, Align.left, wrapWidth > 0);
+        return layouts[slot].height + font.getLineHeight() - font.getCapHeight(); // room for descenders and spacing
+    }
+
+    // Adds a line at the bottom; lines end with "\n" like TextArea appends, which is dropped here
+    public void append(String line) {
+        log.add(line.endsWith("\n") ? line.substring(0, line.length() - 1) : line);
+        invalidateHierarchy(); // the ScrollPane picks up the new height
+    }
+
+    @Override
+    public void layout() {
+        if (getWidth() != wrapWidth && getWidth() > 0) {
+            wrapWidth = getWidth();
+            log.relayout();
+            invalidateHierarchy();
+        }
+    }
+
+    @Override
+    public float getPrefHeight() {
+        return log.height();
+    }
+
+    @Override
+    public void setCullingArea(Rectangle cullingArea) {
+        this.cullingArea = cullingArea;
+    }
+
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        validate();
+        if (log.size() == 0) return;
+        // Distances from the top of the oldest line, which sits at the top of the widget
+        float from = 0, to = getHeight();
+        if (cullingArea != null) {
+            from = getHeight() - (cullingArea.y + cullingArea.height);
+            to = getHeight() - cullingArea.y;
+        }
+        float top = getY() + getHeight();
+        for (int i = log.lineAt(from); i < log.size() && log.top(i) < to; i++) {
+            font.draw(batch, layouts[log.slot(i)], getX(), top - log.top(i));
+        }
+    }
+}
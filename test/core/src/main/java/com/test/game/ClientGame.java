@@ -0,0 +1,319 @@
+package com.test.game;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.TextCodec;
+
+/**
+ * What the client knows about the game, and how every server message changes it.
+ * Plain Java without LibGDX: GameScreen draws through the {@link View} callbacks,
+ * benchmarks and tools can replay messages without a window.
+ */
+public class ClientGame {
+    // Result line colours, GameScreen picks the actual colour
+    public enum Tone {
+        PLAIN, CORRECT, WRONG, ALREADY, ROUND_END, NEW_GAME
+    }
+
+    // Everything handling a message can do to the screen
+    public interface View {
+        void showName(String text);
+
+        void showRole(String text);
+
+        void showPrompt(String text);
+
+        void showWord(String text);
+
+        void showClue(String text);
+
+        void showStatus(String text);
+
+        void showResult(String text);
+
+        void tintResult(Tone tone);
+
+        void appendChat(String line);
+
+        // The player's rating and rank, pushed after each of their rounds
+        void showRank(String text);
+
+        // A wrong guess was just made, wrongGuesses includes it
+        void wrongGuess(int wrongGuesses);
+
+        // A snapshot replaced the figure, draw it at once without animating
+        void hangmanRestored(int wrongGuesses);
+
+        // Whether the player may still choose to watch a match instead of entering a name
+        void showWatchOption(boolean visible);
+
+        // Whether the player may still ask for the computer instead of waiting for an opponent
+        void showBotOption(boolean visible);
+
+        // Read-only layout while watching: no inputs, no chat box
+        void showSpectatorLayout(boolean spectating);
+
+        // We missed something and want a snapshot: called on the render thread, so it must not block on the socket
+        void requestResync();
+    }
+
+    private final View view;
+
+    // Game state
+    private InputStage currentStage = InputStage.NONE;
+    private boolean isChooser = false;
+    private boolean spectating = false;
+    private boolean gameOver = false;
+    private boolean playerLost = false;
+    private String playerName = "";
+    private char[] word; // word as this player sees it, kept up to date by snapshots and deltas
+    private int wrongGuessCount = 0;
+
+    public ClientGame(View view) {
+        this.view = view;
+    }
+
+    // Reacts to server messages
+    public void handle(Message m) {
+        if (m == null) return;
+        String msg = TextCodec.format(m); // the line as players always saw it
+
+        if (m.type == MessageType.CHAT) {
+            String chatMsg = msg.substring(6); // remove prefix
+            view.appendChat(chatMsg + "\n");
+            return;
+        }
+
+        // Anything but the welcome and side notes means the wait for an opponent is over
+        if (m.type != MessageType.WELCOME && m.type != MessageType.SESSION && m.type != MessageType.NOTICE) {
+            view.showBotOption(false);
+        }
+
+        //Debug message
+        // System.out.println("GameOver: " + gameOver + " | PlayerLost: " + playerLost + " | WrongGuessCount: " + wrongGuessCount);
+        switch (m.type) {
+            case PROMPT:
+                handlePrompt(m.code);
+                break;
+            case WATCH:
+                spectating = true;
+                view.showWatchOption(false);
+                view.showSpectatorLayout(true);
+                view.showName("Watching room " + m.value);
+                view.showRole(m.name + " vs " + m.text);
+                view.showPrompt("Waiting for the round to start...");
+                view.showResult("");
+                currentStage = InputStage.NONE;
+                break;
+            case WELCOME:
+                view.showWatchOption(false);
+                view.showBotOption(true);
+                playerName = m.name;
+                view.showName("Name: " + playerName);
+                view.showPrompt("Waiting for the other player...");
+                view.showResult("");
+                break;
+            case CLUE:
+                view.showClue(msg);
+                break;
+            case WORD:
+                if (m.code == 1) {
+                    view.showStatus("");
+                    view.showWord(msg);
+                } else {
+                    view.showWord(isChooser ? "Word: " + m.text : msg);
+                }
+                break;
+            case YOUR_TURN:
+                view.showResult("You are the guesser. Get ready!");
+                view.tintResult(Tone.PLAIN);
+                if (!isChooser) {
+                    view.showRole("Role: Guesser");
+                }
+                break;
+            case GUESS_RESULT:
+                showGuessResult(m.code, msg);
+                break;
+            case SNAPSHOT:
+                applySnapshot(m);
+                break;
+            case DELTA:
+                applyDelta(m);
+                break;
+            case TURN:
+                if (isChooser) {
+                    view.showPrompt(msg);
+                    currentStage = InputStage.NONE;
+                }
+                break;
+            case ROUND_END:
+                view.showResult(msg);
+                view.tintResult(Tone.ROUND_END);
+                view.showPrompt("");
+                currentStage = InputStage.NONE;
+                gameOver = true;
+                if (isChooser) {
+                    playerLost = false;
+                } else {
+                    playerLost = m.code == Message.GUESSER_LOST || m.code == Message.WATCHED_LOST;
+                }
+                break;
+            case NEW_GAME:
+                view.showResult("Starting a new game...");
+                view.tintResult(Tone.NEW_GAME);
+                view.showPrompt("");
+                view.showWord("");
+                view.showClue("");
+                isChooser = false;
+                wrongGuessCount = 0;
+                gameOver = false;
+                playerLost = false;
+                word = null;
+                break;
+            case SESSION:
+                break; // kept by the connection, only needed to resume
+            case DISCONNECT:
+                view.showResult(msg);
+                view.showPrompt("");
+                view.showWord("");
+                view.showClue("");
+                view.showStatus("");
+                view.showName("");
+                view.showRole("");
+                currentStage = InputStage.NONE;
+                break;
+            case NOTICE:
+                if (m.code == Message.NOTICE_WAIT_TURN) {
+                    if (currentStage != InputStage.NONE) {
+                        view.showResult(msg);
+                        view.tintResult(Tone.PLAIN);
+                    }
+                } else if (m.code == Message.NOTICE_RANK) {
+                    view.showRank(msg);
+                } else if (m.code == Message.NOTICE_LEADERBOARD) {
+                    view.appendChat(msg + "\n"); // several lines, the chat box has room for them
+                } else {
+                    view.showResult(msg); // shown like any other line
+                    view.tintResult(Tone.PLAIN);
+                }
+                break;
+            default:
+                view.showResult(msg);
+                view.tintResult(Tone.PLAIN);
+                break;
+        }
+    }
+
+    private void showGuessResult(int result, String msg) {
+        view.showResult(msg);
+        if (result == Message.RESULT_CORRECT) {
+            view.tintResult(Tone.CORRECT);
+        } else if (result == Message.RESULT_WRONG) {
+            view.tintResult(Tone.WRONG);
+            wrongGuessCount++;
+            view.wrongGuess(wrongGuessCount);
+        } else {
+            view.tintResult(Tone.ALREADY);
+        }
+    }
+
+    // Whole round state: sent when the round starts and whenever we asked for a resync
+    private void applySnapshot(Message m) {
+        isChooser = m.code == Message.ROLE_CHOOSER;
+        if (m.code == Message.ROLE_SPECTATOR) {
+            view.showPrompt(m.name + " is guessing...");
+        } else {
+            view.showRole(isChooser ? "Role: Chooser" : "Role: Guesser");
+        }
+        view.showClue("Clue: " + m.extra);
+        word = m.text.toCharArray();
+        view.showWord(TextCodec.format(m));
+        if (isChooser) {
+            view.showStatus("");
+            view.showPrompt(m.name + " is guessing...");
+            currentStage = InputStage.NONE;
+        }
+        wrongGuessCount = Message.ROUND_CHANCES - m.value;
+        view.hangmanRestored(wrongGuessCount);
+    }
+
+    // One guess: uncover its letters in our copy of the word
+    private void applyDelta(Message m) {
+        boolean outside = word != null && word.length < 64 && (m.mask >>> word.length) != 0;
+        if (word == null || outside || Long.bitCount(m.mask) != m.text.length()) {
+            view.requestResync(); // we missed something, the snapshot brings us back
+            return;
+        }
+        for (int i = 0, j = 0; i < word.length; i++) {
+            if ((m.mask & 1L << i) != 0) word[i] = m.text.charAt(j++);
+        }
+        String current = String.valueOf(word);
+        if (!isChooser) {
+            view.showWord("Current word: " + current);
+        }
+        // the chooser's copy is the secret word, so only the guesser can show the updated word
+        String msg = m.code == Message.RESULT_CORRECT && !isChooser
+            ? TextCodec.format(Message.guessResult(m.code, m.letter, m.value, current))
+            : TextCodec.format(m);
+        showGuessResult(m.code, msg);
+    }
+
+    // Server asks for one of the player's inputs
+    private void handlePrompt(int which) {
+        switch (which) {
+            case Message.PROMPT_NAME:
+                view.showWatchOption(true);
+                view.showPrompt("Enter your name:");
+                view.showResult("");
+                view.tintResult(Tone.PLAIN);
+                view.showWord("");
+                view.showClue("");
+                isChooser = false;
+                currentStage = InputStage.NAME;
+                break;
+            case Message.PROMPT_SECRET:
+                view.showPrompt("Enter the secret word (or " + TextCodec.RANDOM + " for one from the server):");
+                isChooser = true;
+                currentStage = InputStage.SECRET;
+                view.showRole("Role: Chooser");
+                break;
+            case Message.PROMPT_CLUE:
+                view.showPrompt("Enter a clue:");
+                currentStage = InputStage.CLUE;
+                break;
+            case Message.PROMPT_LETTER:
+                view.showPrompt("Enter a letter:");
+                currentStage = InputStage.GUESS;
+                break;
+            case Message.PROMPT_PLAY_AGAIN:
+                view.showPrompt("Do you want to play again? (yes/no)");
+                currentStage = InputStage.NAME;
+                view.tintResult(Tone.PLAIN);
+                break;
+        }
+    }
+
+    public InputStage getStage() {
+        return currentStage;
+    }
+
+    public boolean isSpectating() {
+        return spectating;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean hasPlayerLost() {
+        return playerLost;
+    }
+
+    public int getWrongGuessCount() {
+        return wrongGuessCount;
+    }
+}
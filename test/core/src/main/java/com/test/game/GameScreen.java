@@ -3,8 +3,6 @@ package com.test.game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.*;
@@ -12,56 +10,80 @@ import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.TextCodec;
+import com.test.game.net.WireCodec;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 
-// Enum to track user input stage
-enum InputStage {
-    NAME, SECRET, CLUE, GUESS, NONE
-}
-
-public class GameScreen implements Screen {
+public class GameScreen implements Screen, ClientGame.View {
     private HangmanClient game;
 
     // Core rendering tools
     private Stage stage;
     private Skin skin;
-    private SpriteBatch batch;
-    private BitmapFont font;
     private ShapeRenderer shapeRenderer;
+    private HangmanFigure.Pen pen; // draws the figure's cached segments with shapeRenderer
 
     // UI components
     private TextField inputField;
     private Label wordLabel, clueLabel, promptLabel, statusLabel, resultLabel;
-    private Label nameLabel, roleLabel;
+    private Label nameLabel, rankLabel, roleLabel;
     private TextButton submitButton;
+    private TextButton watchButton;
+    private TextButton botButton;
+    private TextButton topButton;
 
     // Chat UI
-    private TextArea chatArea;
+    private ChatView chatView;
+    private ScrollPane chatScroll;
     private TextField chatInput;
     private TextButton sendButton;
 
     // Networking
     private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
-    private final String serverAddress = "127.0.0.1";
-    private final int port = 5000;
-
-    // Game state
-    private InputStage currentStage = InputStage.NONE;
-    private boolean isChooser = false;
-    private boolean gameOver = false;
-    private boolean playerLost = false;
-    private String playerName = "";
+    private DataInputStream in;
+    private OutputStream out;
+    private volatile boolean binary = false; // true once the server accepted binary frames
+    private volatile boolean disposed = false;
+    private volatile boolean resyncWanted = false; // set by the render thread, sent by the network thread
+    // Where we meet an opponent; a cluster then sends us on to the node holding our match
+    private volatile String serverAddress = "127.0.0.1";
+    private volatile int port = 5000;
+    // Reconnect attempts after a dropped connection, waiting 0.5 s, 1 s, 2 s ... up to 8 s in between:
+    // about the 30 seconds the server keeps a seat
+    private static final int RECONNECT_ATTEMPTS = 7;
+    // Binary servers answer pings: after this long without a message we ping, after a few unanswered pings we reconnect
+    private static final int HEARTBEAT_MILLIS = 10000;
+    private static final int HEARTBEAT_MISSES = 3;
+    // Frames are only drawn when something changes, so the first one after a pause reports the whole pause as its
+    // delta. Animations advance by at most this much per frame, so a fade or shake starting then still plays out.
+    private static final float MAX_FRAME_SECONDS = 1 / 30f;
+    // Chat lines kept, older ones are dropped
+    private static final int CHAT_LINES = Integer.getInteger("hangman.chatLines", 200);
+    // Messages that may wait for the next frame; past that, stale updates are dropped, then the network thread waits
+    private static final int INBOX_SIZE = Integer.getInteger("hangman.inboxSize", 1024);
+
+    // Game state, updated by every server message
+    private final ClientGame client = new ClientGame(this);
+    // Messages parsed on the network thread wait here until the next frame hands them to the client
+    private final Inbox inbox = new Inbox(INBOX_SIZE);
+    private Thread network;
 
     // Animation variables
-    private int wrongGuessCount = 0;
     private float headAlpha = 0f;
     private boolean fadingHead = false;
     private float shakeDuration = 0f;
     private float shakeIntensity = 5f;
+    private boolean shaken = false; // the camera is off centre and goes back next frame
+
+    // The hangman's segments, worked out again only when the figure or the layout changes
+    private final HangmanFigure figure = new HangmanFigure();
+    private final Vector2 hangmanCorner = new Vector2(); // reused every frame
 
     // Placeholder container for hangman drawing area
     Container<Label> hangmanSpace = new Container<>();
@@ -70,9 +92,11 @@ public class GameScreen implements Screen {
         this.game = game;
 
         // Initialize rendering and UI
-        batch = new SpriteBatch();
-        font = new BitmapFont();
         shapeRenderer = new ShapeRenderer();
+        pen = new HangmanFigure.Pen() {
+            @Override public void color(float r, float g, float b, float a) { shapeRenderer.setColor(r, g, b, a); }
+            @Override public void line(float x1, float y1, float x2, float y2) { shapeRenderer.line(x1, y1, x2, y2); }
+        };
 
         stage = new Stage();
         skin = new Skin(Gdx.files.internal("uiskin.json"));
@@ -80,6 +104,7 @@ public class GameScreen implements Screen {
 
         // Initialize UI labels and fields
         nameLabel = new Label("", skin);
+        rankLabel = new Label("", skin);
         roleLabel = new Label("", skin);
         promptLabel = new Label("", skin);
         statusLabel = new Label("", skin);
@@ -88,6 +113,11 @@ public class GameScreen implements Screen {
         clueLabel = new Label("", skin);
         inputField = new TextField("", skin);
         submitButton = new TextButton("Submit", skin);
+        watchButton = new TextButton("Watch a match", skin);
+        watchButton.setVisible(false);
+        botButton = new TextButton("Play the computer", skin);
+        botButton.setVisible(false);
+        topButton = new TextButton("Top players", skin);
 
 
         // Configure hangmanSpace container.
@@ -111,12 +141,16 @@ public class GameScreen implements Screen {
         gameTable.add(new Label("HANGMAN",skin)).colspan(2).padBottom(20).row();
         gameTable.add(new Label("Game Area",skin)).colspan(2).pad(30).row();
         gameTable.add(nameLabel).colspan(2).pad(10).left().row();
+        gameTable.add(rankLabel).colspan(2).pad(10).left().row();
         gameTable.add(roleLabel).colspan(2).pad(10).left().row();
         gameTable.add(promptLabel).colspan(2).pad(10).left().row();
         gameTable.add(wordLabel).colspan(2).pad(10).left().row();
         gameTable.add(clueLabel).colspan(2).pad(10).left().row();
         gameTable.add(inputField).width(100).pad(10);
         gameTable.add(submitButton).width(100).pad(10).row();
+        gameTable.add(watchButton).colspan(2).width(210).pad(10).row();
+        gameTable.add(botButton).colspan(2).width(210).pad(10).row();
+        gameTable.add(topButton).colspan(2).width(210).pad(10).row();
         gameTable.add(statusLabel).colspan(2).pad(10).left().row();
         gameTable.add(resultLabel).colspan(2).pad(10).left().row();
 
@@ -134,12 +168,10 @@ public class GameScreen implements Screen {
         // Chat UI setup
         // Create Chat UI table.
         Table chatTable = new Table().top().right();
-        chatArea = new TextArea("", skin);
-        chatArea.setDisabled(true);
-        chatArea.setPrefRows(8);
-        chatArea.setColor(Color.DARK_GRAY);
-        ScrollPane chatScroll = new ScrollPane(chatArea, skin);
+        chatView = new ChatView(skin.getFont("default-font"), Color.LIGHT_GRAY, CHAT_LINES);
+        chatScroll = new ScrollPane(chatView, skin);
         chatScroll.setFadeScrollBars(false);
+        chatScroll.setScrollingDisabled(true, false); // lines wrap at the pane's width
         chatInput = new TextField("", skin);
         sendButton = new TextButton("Send", skin);
 
@@ -166,7 +198,7 @@ public class GameScreen implements Screen {
 
                 if (input.isEmpty()) return;
 
-                switch (currentStage) {
+                switch (client.getStage()) {
                     case NAME:
                     case SECRET:
                     case CLUE:
@@ -186,6 +218,32 @@ public class GameScreen implements Screen {
             }
         });
 
+        // Watch button: spectate the server's featured match instead of playing
+        watchButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                watchButton.setVisible(false);
+                send(Message.watch(0));
+            }
+        });
+
+        // Bot button: stop waiting for a person and play against the server's computer player
+        botButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                botButton.setVisible(false);
+                send(Message.input(TextCodec.BOT));
+            }
+        });
+
+        // Top players button: the leaderboard arrives in the chat box
+        topButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                send(Message.input(TextCodec.TOP));
+            }
+        });
+
         // Chat send button
         sendButton.addListener(new ClickListener() {
             @Override
@@ -206,170 +264,240 @@ public class GameScreen implements Screen {
 
     private void connectToServer() {
         try {
-            socket = new Socket(serverAddress, port);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
-            new Thread(this::listenToServer).start();
+            open();
+            network = new Thread(this::listenToServer, "network");
+            network.setDaemon(true);
+            network.start();
         } catch (IOException e) {
             statusLabel.setText("Could not connect to server");
         }
     }
 
+    private synchronized void open() throws IOException {
+        if (socket != null) socket.close(); // a dropped or silent connection we are replacing
+        socket = new Socket(serverAddress, port);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = socket.getOutputStream();
+        binary = false;
+        resyncWanted = false; // a resumed seat gets a snapshot anyway
+    }
+
+    // The connection's only thread: reads, parses and queues every message, and reconnects when it drops
     private void listenToServer() {
-        new Thread(() -> {
+        String session = null; // token to take our seat back with, as long as the game goes on
+        int attempt = 0;
+        connection:
+        while (true) {
             try {
-                String msg;
-                while ((msg = in.readLine()) != null) {
-                    final String finalMsg = msg;
-                    Gdx.app.postRunnable(() -> handleServerMessage(finalMsg));
+                // The first line is the name prompt; servers that speak binary frames offer them in it
+                String first = WireCodec.readLine(in);
+                if (first == null) throw new EOFException();
+                if (first.contains(TextCodec.OFFER)) {
+                    send(Message.input(TextCodec.OFFER));
+                    String line;
+                    do {
+                        line = WireCodec.readLine(in);
+                        if (line == null) throw new EOFException(); // closed before it switched, like any lost connection
+                    } while (!line.equals(TextCodec.ACCEPT));
+                    binary = true;
+                    socket.setSoTimeout(HEARTBEAT_MILLIS);
+                }
+                if (session != null) {
+                    send(Message.session(session)); // instead of a name: the server puts us back in our room
+                    session = null; // sent again if the server still had our seat
+                } else {
+                    deliver(TextCodec.parse(first));
+                }
+
+                Message msg;
+                int unanswered = 0;
+                while (true) {
+                    if (resyncWanted) {
+                        resyncWanted = false;
+                        send(Message.resync());
+                    }
+                    try {
+                        msg = readMessage();
+                    } catch (SocketTimeoutException e) {
+                        if (++unanswered >= HEARTBEAT_MISSES) throw e; // the server is gone without closing
+                        send(Message.ping());
+                        continue;
+                    }
+                    if (msg == null) break;
+                    attempt = 0;
+                    unanswered = 0;
+                    if (msg.type == MessageType.PING) send(Message.pong());
+                    if (msg.type == MessageType.PING || msg.type == MessageType.PONG) continue;
+                    if (msg.type == MessageType.REDIRECT) {
+                        // our match is on another node: go there now, the ticket claims our seat like a session token
+                        serverAddress = msg.name;
+                        port = msg.value;
+                        session = msg.text;
+                        open();
+                        continue connection;
+                    }
+                    if (msg.type == MessageType.SESSION) session = msg.text;
+                    if (msg.type == MessageType.DISCONNECT) session = null; // the game is over, nothing to come back to
+                    deliver(msg);
                 }
             } catch (IOException e) {
-                Gdx.app.postRunnable(() -> statusLabel.setText("Disconnected from server"));
+                // lost the connection, see below whether we can come back
+            } catch (InterruptedException e) {
+                return; // disposed while waiting for the render thread to make room
+            }
+            if (disposed || session == null || !reconnect(attempt++)) {
+                if (!disposed) Gdx.app.postRunnable(() -> statusLabel.setText("Disconnected from server"));
+                return;
             }
-        }).start();
+        }
     }
 
-    // Parses and reacts to server messages
-    private void handleServerMessage(String msg) {
-        if (msg == null || msg.isEmpty()) return;
+    // Network thread: queues a parsed message for the render thread
+    private void deliver(Message m) throws InterruptedException {
+        if (inbox.offer(m)) Gdx.graphics.requestRendering(); // the next frame takes it
+    }
 
-        if (msg.startsWith("@chat:")) {
-            String chatMsg = msg.substring(6); // remove prefix
-            chatArea.appendText(chatMsg + "\n");
-            return;
+    // Waits a little longer on every attempt and connects again, false once we gave up
+    private boolean reconnect(int attempt) {
+        if (attempt >= RECONNECT_ATTEMPTS) return false;
+        Gdx.app.postRunnable(() -> statusLabel.setText("Connection lost, reconnecting..."));
+        try {
+            Thread.sleep(Math.min(8000L, 500L << attempt));
+            open();
+            Gdx.app.postRunnable(() -> statusLabel.setText(""));
+            return true;
+        } catch (IOException e) {
+            return reconnect(attempt + 1);
+        } catch (InterruptedException e) {
+            return false;
         }
+    }
 
-        //Debug message
-        // System.out.println("GameOver: " + gameOver + " | PlayerLost: " + playerLost + " | WrongGuessCount: " + wrongGuessCount);
-        String msgLower = msg.toLowerCase();
-
-        // [The rest of your server message handling remains unchanged...]
-        if (msg.startsWith("Enter your name")) {
-            promptLabel.setText("Enter your name:");
-            resultLabel.setText("");
-            resultLabel.setColor(1, 1, 1, 1);
-            wordLabel.setText("");
-            clueLabel.setText("");
-            isChooser = false;
-            currentStage = InputStage.NAME;
-        } else if (msg.startsWith("Welcome,")) {
-            playerName = msg.substring("Welcome,".length()).replace("!", "").trim();
-            nameLabel.setText("Name: " + playerName);
-            promptLabel.setText("Waiting for the other player...");
-            resultLabel.setText("");
-        } else if (msg.startsWith("Enter the secret word")) {
-            promptLabel.setText("Enter the secret word:");
-            isChooser = true;
-            currentStage = InputStage.SECRET;
-            roleLabel.setText("Role: Chooser");
-        } else if (msg.startsWith("Enter Clue")) {
-            promptLabel.setText("Enter a clue:");
-            currentStage = InputStage.CLUE;
-        } else if (msg.startsWith("Clue:")) {
-            clueLabel.setText(msg);
-        } else if (msg.startsWith("Current word:")) {
-            String wordContent = msg.substring("Current word:".length()).trim();
-            wordLabel.setText(isChooser ? "Word: " + wordContent : msg);
-        } else if (msg.startsWith("Word:")) {
-            statusLabel.setText("");
-            wordLabel.setText(msg);
-        } else if (msg.startsWith("It's your turn to guess.")) {
-            resultLabel.setText("You are the guesser. Get ready!");
-            resultLabel.setColor(1, 1, 1, 1);
-            if (!isChooser) {
-                roleLabel.setText("Role: Guesser");
-            }
-        } else if (msg.startsWith("Enter a letter:")) {
-            promptLabel.setText("Enter a letter:");
-            currentStage = InputStage.GUESS;
-        } else if (msg.startsWith("Correct guess")) {
-            resultLabel.setText(msg);
-            resultLabel.setColor(0, 1, 0, 1);
-        } else if (msg.startsWith("Incorrect guess")) {
-            resultLabel.setText(msg);
-            resultLabel.setColor(1, 0, 0, 1);
-            wrongGuessCount++;
-
-            if (wrongGuessCount == 1) {
-                headAlpha = 0f;
-                fadingHead = true;
-            }
-            shakeDuration = 0.3f; // shake for 0.3 seconds
-        } else if (msg.endsWith("is guessing...")) {
-            if (isChooser) {
-                promptLabel.setText(msg);
-                currentStage = InputStage.NONE;
-            }
-        } else if (msg.contains("already been guessed")) {
-            resultLabel.setText(msg);
-            resultLabel.setColor(1, 0.5f, 0, 1);
-        } else if (msgLower.contains("you won") || msgLower.contains("you lose") || msgLower.contains("game over")) {
-            resultLabel.setText(msg);
-            resultLabel.setColor(1, 1, 0, 1);
-            promptLabel.setText("");
-            currentStage = InputStage.NONE;
-            gameOver = true;
-            if (isChooser) {
-                playerLost = false;
-            } else {
-                playerLost = msgLower.contains("game over");
-            }
-        } else if (msg.startsWith("Do you wanna play another game?")) {
-            promptLabel.setText("Do you want to play again? (yes/no)");
-            currentStage = InputStage.NAME;
-            resultLabel.setColor(1, 1, 1, 1);
-        } else if (msg.startsWith("Starting New Game")) {
-            resultLabel.setText("Starting a new game...");
-            resultLabel.setColor(0.8f, 0.8f, 1, 1);
-            promptLabel.setText("");
-            wordLabel.setText("");
-            clueLabel.setText("");
-            isChooser = false;
-            wrongGuessCount = 0;
-            gameOver = false;
-            playerLost = false;
-        } else if (msg.toLowerCase().contains("disconnecting from server")) {
-            resultLabel.setText(msg);
-            promptLabel.setText("");
-            wordLabel.setText("");
-            clueLabel.setText("");
-            statusLabel.setText("");
-            nameLabel.setText("");
-            roleLabel.setText("");
-            currentStage = InputStage.NONE;
-        } else if (msgLower.contains("wait for your turn")) {
-            if (currentStage != InputStage.NONE) {
-                resultLabel.setText(msg);
-                resultLabel.setColor(1, 1, 1, 1);
+    // Next message from the server in whichever protocol was negotiated, null once the server is gone.
+    // Only the wait for its first byte may time out quietly: a timeout halfway through a message has eaten bytes
+    // we can't read again, so the stream is out of step and the connection counts as lost.
+    private Message readMessage() throws IOException {
+        in.mark(1);
+        if (in.read() < 0) return null; // a SocketTimeoutException here consumed nothing
+        in.reset();
+        try {
+            if (binary) {
+                return WireCodec.readFrame(in);
             }
-        } else {
-            resultLabel.setText(msg);
-            resultLabel.setColor(1, 1, 1, 1);
+            String line = WireCodec.readLine(in);
+            return line == null ? null : TextCodec.parse(line);
+        } catch (SocketTimeoutException e) {
+            throw new IOException("Server stalled in the middle of a message", e);
+        }
+    }
+
+    // ClientGame.View: how handling a server message shows up on screen
+    @Override public void showName(String text) { nameLabel.setText(text); }
+    @Override public void showRank(String text) { rankLabel.setText(text); }
+    @Override public void showRole(String text) { roleLabel.setText(text); }
+    @Override public void showPrompt(String text) { promptLabel.setText(text); }
+    @Override public void showWord(String text) { wordLabel.setText(text); }
+    @Override public void showClue(String text) { clueLabel.setText(text); }
+    @Override public void showWatchOption(boolean visible) { watchButton.setVisible(visible); }
+    @Override public void showBotOption(boolean visible) { botButton.setVisible(visible); }
+    @Override public void showStatus(String text) { statusLabel.setText(text); }
+    @Override public void showResult(String text) { resultLabel.setText(text); }
+
+    // Follows new lines while the player is at the bottom, stays put while they scroll back
+    @Override
+    public void appendChat(String line) {
+        boolean following = chatScroll.isBottomEdge();
+        chatView.append(line);
+        if (following) {
+            chatScroll.layout();
+            chatScroll.setScrollPercentY(1);
+            chatScroll.updateVisualScroll();
+        }
+    }
+
+    @Override
+    public void tintResult(ClientGame.Tone tone) {
+        switch (tone) {
+            case CORRECT: resultLabel.setColor(0, 1, 0, 1); break;
+            case WRONG: resultLabel.setColor(1, 0, 0, 1); break;
+            case ALREADY: resultLabel.setColor(1, 0.5f, 0, 1); break;
+            case ROUND_END: resultLabel.setColor(1, 1, 0, 1); break;
+            case NEW_GAME: resultLabel.setColor(0.8f, 0.8f, 1, 1); break;
+            default: resultLabel.setColor(1, 1, 1, 1); break;
         }
     }
 
+    @Override
+    public void wrongGuess(int wrongGuesses) {
+        if (wrongGuesses == 1) {
+            headAlpha = 0f;
+            fadingHead = true;
+        }
+        shakeDuration = 0.3f; // shake for 0.3 seconds
+    }
+
+    @Override
+    public void hangmanRestored(int wrongGuesses) {
+        headAlpha = wrongGuesses > 0 ? 1f : 0f;
+        fadingHead = false;
+    }
+
+    // Spectators only look: the inputs and the chat box go, the chat log stays
+    @Override
+    public void showSpectatorLayout(boolean spectating) {
+        inputField.setVisible(!spectating);
+        submitButton.setVisible(!spectating);
+        chatInput.setVisible(!spectating);
+        sendButton.setVisible(!spectating);
+    }
+
     private void sendInput(String input) {
         if (out != null && !input.trim().isEmpty()) {
-            out.println(input.trim());
+            String trimmed = input.trim();
+            boolean letter = client.getStage() == InputStage.GUESS && trimmed.length() == 1;
+            send(letter ? Message.guess(trimmed.charAt(0), true) : Message.input(trimmed));
         }
     }
 
     private void sendChat() {
         String msg = chatInput.getText().trim();
-        if (!msg.isEmpty()) {
-            out.println("@chat:" + msg); // Special prefix for server
+        if (!msg.isEmpty() && out != null) {
+            send(Message.chat(client.getPlayerName(), msg)); // "@chat:" prefixed line on text servers
             chatInput.setText("");
         }
     }
 
+    // ClientGame.View: the network thread sends it before it waits for the next message, at the latest after
+    // a heartbeat interval. Only the round's next message fixes what we missed anyway.
+    @Override
+    public void requestResync() {
+        resyncWanted = true;
+    }
+
+    // Writes one input in whichever protocol was negotiated
+    public synchronized void send(Message m) {
+        try {
+            if (binary) {
+                ByteBuffer frame = WireCodec.encode(m);
+                out.write(frame.array(), 0, frame.limit());
+            } else {
+                out.write((TextCodec.formatInput(m) + "\n").getBytes());
+            }
+            out.flush();
+        } catch (IOException e) {
+            Gdx.app.postRunnable(() -> statusLabel.setText("Disconnected from server"));
+        }
+    }
+
     @Override
     public void show() {}
 
     @Override
     public void render(float delta) {
+        delta = Math.min(delta, MAX_FRAME_SECONDS);
+        inbox.drain(client); // everything the server sent since the last frame
         Gdx.gl.glClearColor(0, 0, 0.2f, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        Gdx.gl.glEnable(GL20.GL_BLEND);
 
         // Fade-in head
         if (fadingHead) {
@@ -380,94 +508,39 @@ public class GameScreen implements Screen {
             }
         }
 
-        // Shake logic
-        float shakeX = 0, shakeY = 0;
-        if (shakeDuration > 0) {
-            shakeDuration -= delta;
-            shakeX = (float)(Math.random() * 2 - 1) * shakeIntensity;
-            shakeY = (float)(Math.random() * 2 - 1) * shakeIntensity;
+        // Shake logic: the camera only moves while shaking, and once more to come back to the centre
+        if (shakeDuration > 0 || shaken) {
+            float shakeX = 0, shakeY = 0;
+            shaken = shakeDuration > 0;
+            if (shaken) {
+                shakeDuration -= delta;
+                shakeX = (float)(Math.random() * 2 - 1) * shakeIntensity;
+                shakeY = (float)(Math.random() * 2 - 1) * shakeIntensity;
+            }
+            stage.getViewport().getCamera().position.set(
+                stage.getViewport().getWorldWidth() / 2f + shakeX,
+                stage.getViewport().getWorldHeight() / 2f + shakeY,
+                0
+            );
+            stage.getViewport().getCamera().update();
         }
-
-        // Update stage with possible shake effect
-        batch.begin();
-        stage.getViewport().getCamera().position.set(
-            stage.getViewport().getWorldWidth() / 2f + shakeX,
-            stage.getViewport().getWorldHeight() / 2f + shakeY,
-            0
-        );
-        stage.getViewport().getCamera().update();
         stage.act(delta);
-        stage.draw();
-        batch.end();
+        stage.draw(); // the stage has its own batch and blending
 
         // ======== HANGMAN DRAWING ==========
-        // Retrieve the stage coordinates from hangmanSpace.
-        Vector2 hangmanPos = hangmanSpace.localToStageCoordinates(new Vector2(0, hangmanSpace.getHeight()));
-        float baseX = hangmanPos.x;          // Left edge of the container
-        float baseY = hangmanPos.y;          // Top edge of the container
-
-        // Use a margin inside the container.
-        float margin = 10f;
-        float drawX = baseX + margin;
-        float drawY = baseY - margin;
-
-        // Set a scale factor to magnify the drawing.
-        float scale = 1.75f;  // Increase this value for a larger drawing.
+        // Top left corner of hangmanSpace in stage coordinates; the segments follow it when the layout moves
+        hangmanSpace.localToStageCoordinates(hangmanCorner.set(0, hangmanSpace.getHeight()));
+        figure.update(hangmanCorner.x, hangmanCorner.y, client.getWrongGuessCount(), client.isGameOver() && client.hasPlayerLost());
 
+        boolean blend = figure.translucent(headAlpha);
+        if (blend) Gdx.gl.glEnable(GL20.GL_BLEND);
         shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
-        shapeRenderer.setColor(Color.WHITE);
-        // Draw the gallows, scaling the lengths.
-        // Vertical post:
-        shapeRenderer.line(drawX, drawY, drawX, drawY - 100 * scale);
-        // Horizontal beam:
-        shapeRenderer.line(drawX, drawY, drawX + 50 * scale, drawY);
-        // Rope:
-        shapeRenderer.line(drawX + 50 * scale, drawY, drawX + 50 * scale, drawY - 20 * scale);
-
-        // Draw the hangman parts based on wrongGuessCount.
-        if (wrongGuessCount >= 1) {
-            shapeRenderer.setColor(1, 1, 1, headAlpha);
-            // Head as circle with scaled radius:
-            shapeRenderer.circle(drawX + 50 * scale, drawY - 30 * scale, 10 * scale);
-            shapeRenderer.setColor(Color.WHITE);
-        }
-        if (wrongGuessCount >= 2) {
-            // Body line:
-            shapeRenderer.line(drawX + 50 * scale, drawY - 40 * scale, drawX + 50 * scale, drawY - 70 * scale);
-        }
-        if (wrongGuessCount >= 3) {
-            // Left arm:
-            shapeRenderer.line(drawX + 50 * scale, drawY - 50 * scale, drawX + 40 * scale, drawY - 60 * scale);
-        }
-        if (wrongGuessCount >= 4) {
-            // Right arm:
-            shapeRenderer.line(drawX + 50 * scale, drawY - 50 * scale, drawX + 60 * scale, drawY - 60 * scale);
-        }
-        if (wrongGuessCount >= 5) {
-            // Left leg:
-            shapeRenderer.line(drawX + 50 * scale, drawY - 70 * scale, drawX + 40 * scale, drawY - 80 * scale);
-        }
-        if (wrongGuessCount >= 6) {
-            // Right leg:
-            shapeRenderer.line(drawX + 50 * scale, drawY - 70 * scale, drawX + 60 * scale, drawY - 80 * scale);
-        }
-
-        // Game over eye Xs
-        if (gameOver && playerLost && wrongGuessCount >= 1) {
-            shapeRenderer.setColor(Color.RED);
-            float cx = drawX + 50 * scale;
-            float cy = drawY - 30 * scale;
-            float eyeOffsetX = 3 * scale, eyeOffsetY = 3 * scale;
-            // Left eye 'X'
-            shapeRenderer.line(cx - eyeOffsetX - 2 * scale, cy + eyeOffsetY + 2 * scale, cx - eyeOffsetX + 2 * scale, cy + eyeOffsetY - 2 * scale);
-            shapeRenderer.line(cx - eyeOffsetX - 2 * scale, cy + eyeOffsetY - 2 * scale, cx - eyeOffsetX + 2 * scale, cy + eyeOffsetY + 2 * scale);
-            // Right eye 'X'
-            shapeRenderer.line(cx + eyeOffsetX - 2 * scale, cy + eyeOffsetY + 2 * scale, cx + eyeOffsetX + 2 * scale, cy + eyeOffsetY - 2 * scale);
-            shapeRenderer.line(cx + eyeOffsetX - 2 * scale, cy + eyeOffsetY - 2 * scale, cx + eyeOffsetX + 2 * scale, cy + eyeOffsetY + 2 * scale);
-            shapeRenderer.setColor(Color.WHITE);
-        }
+        figure.draw(pen, headAlpha);
         shapeRenderer.end();
-        Gdx.gl.glDisable(GL20.GL_BLEND);
+        if (blend) Gdx.gl.glDisable(GL20.GL_BLEND);
+
+        // Without continuous rendering, keep frames coming while the head fades in or the figure shakes
+        if (fadingHead || shakeDuration > 0 || shaken) Gdx.graphics.requestRendering();
     }
 
     @Override
@@ -481,10 +554,11 @@ public class GameScreen implements Screen {
     
     @Override
     public void dispose() {
+        disposed = true;
+        if (network != null) network.interrupt();
+        Gdx.app.log("Inbox", inbox.stats());
         stage.dispose();
         skin.dispose();
-        batch.dispose();
-        font.dispose();
         shapeRenderer.dispose();
         try { if (socket != null) socket.close(); } catch(IOException e) { e.printStackTrace(); }
     }
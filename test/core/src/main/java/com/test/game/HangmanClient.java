@@ -2,6 +2,7 @@ package com.test.game;
 
 // LibGDX core class for managing multiple screens
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Gdx;
 
 /**
  * HangmanClient is the main entry point of the game client.
@@ -10,6 +11,11 @@ import com.badlogic.gdx.Game;
  * Starts with the FirstScreen, which leads to GameScreen after clicking “Start Game.”
  */
 public class HangmanClient extends Game {
+    /**
+     * Redraw every frame like LibGDX does by default, instead of only when something changed.
+     * Off unless -Dhangman.continuousRendering=true, which is there to compare the two.
+     */
+    private static final boolean CONTINUOUS_RENDERING = Boolean.getBoolean("hangman.continuousRendering");
 
     /**
      * Called when the application is launched.
@@ -17,6 +23,9 @@ public class HangmanClient extends Game {
      */
     @Override
     public void create() {
+        // Frames are drawn on input, on server messages (they arrive through Gdx.app.postRunnable) and while
+        // a screen asks for more with Gdx.graphics.requestRendering(); an idle client draws nothing
+        Gdx.graphics.setContinuousRendering(CONTINUOUS_RENDERING);
         // Set the initial screen to the main menu (FirstScreen)
         setScreen(new FirstScreen(this));
     }
@@ -0,0 +1,135 @@
+package com.test.game;
+
+/**
+ * The gallows and the hangman as line segments in stage coordinates, worked out once per change.
+ * They only move when a wrong guess adds a part, a lost round adds the eyes, or the layout moves the drawing area,
+ * so a frame replays the cached segments without any arithmetic or allocation.
+ * Plain Java without LibGDX: GameScreen draws through a {@link Pen} onto its ShapeRenderer, benchmarks without a window.
+ */
+public final class HangmanFigure {
+    // Where the segments go
+    public interface Pen {
+        void color(float r, float g, float b, float a);
+
+        void line(float x1, float y1, float x2, float y2);
+    }
+
+    // Inside the drawing area, and how much larger than the figure units below the drawing is
+    private static final float MARGIN = 10f, SCALE = 1.75f;
+    private static final int HEAD_SEGMENTS = 20;
+    // Figure units, x right and y down from the top of the post: x1, y1, x2, y2 per segment
+    private static final float[] GALLOWS = {
+        0, 0, 0, 100,   // post
+        0, 0, 50, 0,    // beam
+        50, 0, 50, 20,  // rope
+    };
+    // One part per wrong guess after the head, in the order they appear: body, arms, legs
+    private static final float[] PARTS = {
+        50, 40, 50, 70,
+        50, 50, 40, 60,
+        50, 50, 60, 60,
+        50, 70, 40, 80,
+        50, 70, 60, 80,
+    };
+    private static final float HEAD_X = 50, HEAD_Y = 30, HEAD_RADIUS = 10;
+    // Points around the head, one more than segments so the last segment closes the circle
+    private static final float[] HEAD_POINTS = new float[(HEAD_SEGMENTS + 1) * 2];
+    static {
+        for (int i = 0; i <= HEAD_SEGMENTS; i++) {
+            double angle = 2 * Math.PI * i / HEAD_SEGMENTS;
+            HEAD_POINTS[i * 2] = HEAD_X + HEAD_RADIUS * (float) Math.cos(angle);
+            HEAD_POINTS[i * 2 + 1] = HEAD_Y + HEAD_RADIUS * (float) Math.sin(angle);
+        }
+    }
+    // Eyes crossed out once the guesser lost: centred this far from the head's centre, arms this long
+    private static final float EYE_OFFSET = 3, EYE_SIZE = 2;
+
+    private final float[] body = new float[GALLOWS.length + PARTS.length];
+    private final float[] head = new float[HEAD_SEGMENTS * 4];
+    private final float[] eyes = new float[16];
+    private int bodyFloats;
+    private boolean showHead, showEyes;
+
+    // What the segments were worked out for
+    private float left = Float.NaN, top = Float.NaN;
+    private int wrongGuesses = -1;
+    private boolean lost;
+    private int rebuilds;
+
+    // Brings the segments up to date: left and top are the drawing area's top left corner in stage coordinates.
+    // Returns whether anything had to be worked out again.
+    public boolean update(float left, float top, int wrongGuesses, boolean lost) {
+        if (left == this.left && top == this.top && wrongGuesses == this.wrongGuesses && lost == this.lost) return false;
+        this.left = left;
+        this.top = top;
+        this.wrongGuesses = wrongGuesses;
+        this.lost = lost;
+        rebuilds++;
+
+        int parts = Math.max(0, Math.min(wrongGuesses - 1, PARTS.length / 4));
+        bodyFloats = 0;
+        for (int i = 0; i < GALLOWS.length; i += 4) addLine(GALLOWS[i], GALLOWS[i + 1], GALLOWS[i + 2], GALLOWS[i + 3]);
+        for (int i = 0; i < parts * 4; i += 4) addLine(PARTS[i], PARTS[i + 1], PARTS[i + 2], PARTS[i + 3]);
+
+        showHead = wrongGuesses >= 1;
+        if (showHead) {
+            for (int i = 0; i < HEAD_SEGMENTS; i++) {
+                setLine(head, i * 4, HEAD_POINTS[i * 2], HEAD_POINTS[i * 2 + 1], HEAD_POINTS[i * 2 + 2], HEAD_POINTS[i * 2 + 3]);
+            }
+        }
+
+        showEyes = showHead && lost;
+        if (showEyes) {
+            float eyeY = HEAD_Y - EYE_OFFSET;
+            for (int eye = 0; eye < 2; eye++) {
+                float eyeX = HEAD_X + (eye == 0 ? -EYE_OFFSET : EYE_OFFSET);
+                setLine(eyes, eye * 8, eyeX - EYE_SIZE, eyeY - EYE_SIZE, eyeX + EYE_SIZE, eyeY + EYE_SIZE);
+                setLine(eyes, eye * 8 + 4, eyeX - EYE_SIZE, eyeY + EYE_SIZE, eyeX + EYE_SIZE, eyeY - EYE_SIZE);
+            }
+        }
+        return true;
+    }
+
+    // The head fades in, headAlpha is its opacity
+    public void draw(Pen pen, float headAlpha) {
+        pen.color(1, 1, 1, 1);
+        lines(pen, body, bodyFloats);
+        if (showHead) {
+            pen.color(1, 1, 1, headAlpha);
+            lines(pen, head, head.length);
+        }
+        if (showEyes) {
+            pen.color(1, 0, 0, 1);
+            lines(pen, eyes, eyes.length);
+        }
+    }
+
+    // Whether drawing needs blending: only a head still fading in is see-through
+    public boolean translucent(float headAlpha) {
+        return showHead && headAlpha < 1f;
+    }
+
+    // How often the segments were worked out, for benchmarks
+    public int rebuilds() {
+        return rebuilds;
+    }
+
+    private void addLine(float x1, float y1, float x2, float y2) {
+        setLine(body, bodyFloats, x1, y1, x2, y2);
+        bodyFloats += 4;
+    }
+
+    // Figure units to stage coordinates
+    private void setLine(float[] to, int at, float x1, float y1, float x2, float y2) {
+        to[at] = left + MARGIN + x1 * SCALE;
+        to[at + 1] = top - MARGIN - y1 * SCALE;
+        to[at + 2] = left + MARGIN + x2 * SCALE;
+        to[at + 3] = top - MARGIN - y2 * SCALE;
+    }
+
+    private static void lines(Pen pen, float[] segments, int floats) {
+        for (int i = 0; i < floats; i += 4) {
+            pen.line(segments[i], segments[i + 1], segments[i + 2], segments[i + 3]);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.test.game;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+
+import java.util.Arrays;
+
+/**
+ * Server messages on their way from the network thread, already parsed, to the render thread, which takes everything
+ * waiting once per frame. The queue is a ring allocated up front, so a storm of messages costs no more than the
+ * messages themselves. Within what is taken together, a message whose whole effect a later one overwrites is skipped.
+ * When the ring is full, those stale updates are dropped first; chat and round updates are never dropped, the network
+ * thread waits for the next frame instead, and the server sees a slow reader.
+ */
+public final class Inbox {
+    // Messages that only replace what the screen shows, so a later one of the same kind makes an earlier one moot
+    private static final int CLUE = 0, PLAYER_WORD = 1, CHOOSER_WORD = 2, RANK = 3, KINDS = 4;
+
+    private final Message[] ring;
+    private int head, size; // oldest message waiting, how many wait
+    private final Message[] batch; // render thread only, like everything below up to the counters
+    private final boolean[] skip;
+    private final boolean[] later = new boolean[KINDS];
+    private final boolean[] laterOffered = new boolean[KINDS]; // network thread, used while the ring is full
+    private long handled, coalesced, dropped, waits;
+
+    public Inbox(int capacity) {
+        ring = new Message[capacity];
+        batch = new Message[capacity];
+        skip = new boolean[capacity];
+    }
+
+    // Network thread: true if nothing was waiting, then the caller makes sure a frame comes to take it.
+    // Blocks while the ring is full of messages that must not be dropped.
+    public synchronized boolean offer(Message m) throws InterruptedException {
+        while (size == ring.length && !dropStale(m)) {
+            waits++;
+            wait();
+        }
+        ring[(head + size) % ring.length] = m;
+        size++;
+        return size == 1;
+    }
+
+    // Render thread: hands everything waiting to the game, returns how many messages were handled
+    public int drain(ClientGame game) {
+        int n;
+        synchronized (this) {
+            n = size;
+            for (int i = 0; i < n; i++) {
+                int slot = (head + i) % ring.length;
+                batch[i] = ring[slot];
+                ring[slot] = null;
+            }
+            head = (head + n) % ring.length;
+            size = 0;
+            if (n == ring.length) notifyAll(); // the network thread may be waiting for room
+        }
+        Arrays.fill(later, false);
+        for (int i = n - 1; i >= 0; i--) {
+            int kind = kind(batch[i]);
+            skip[i] = kind >= 0 && later[kind];
+            if (kind >= 0) later[kind] = true;
+        }
+        int done = 0;
+        for (int i = 0; i < n; i++) {
+            if (!skip[i]) {
+                game.handle(batch[i]);
+                done++;
+            }
+            batch[i] = null;
+        }
+        synchronized (this) {
+            handled += done;
+            coalesced += n - done;
+        }
+        return done;
+    }
+
+    // Ring full: drops the updates that a later one, the incoming message included, overwrites. False if none.
+    private boolean dropStale(Message incoming) {
+        Arrays.fill(laterOffered, false);
+        int kind = kind(incoming);
+        if (kind >= 0) laterOffered[kind] = true;
+        int kept = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            Message m = ring[(head + i) % ring.length];
+            kind = kind(m);
+            if (kind >= 0 && laterOffered[kind]) continue;
+            if (kind >= 0) laterOffered[kind] = true;
+            kept++;
+            ring[(head + size - kept) % ring.length] = m; // packs the kept ones towards the newest end
+        }
+        if (kept == size) return false;
+        for (int i = 0; i < size - kept; i++) ring[(head + i) % ring.length] = null;
+        dropped += size - kept;
+        head = (head + size - kept) % ring.length;
+        size = kept;
+        return true;
+    }
+
+    // Messages handled, skipped because a later one taken with them had the same effect, dropped as stale from a
+    // full ring, and how often the network thread had to wait for room
+    public synchronized String stats() {
+        return String.format("%d handled, %d skipped, %d dropped, %d waits", handled, coalesced, dropped, waits);
+    }
+
+    private static int kind(Message m) {
+        if (m.type == MessageType.CLUE) return CLUE;
+        if (m.type == MessageType.WORD) return m.code == 1 ? CHOOSER_WORD : PLAYER_WORD;
+        if (m.type == MessageType.NOTICE && m.code == Message.NOTICE_RANK) return RANK;
+        return -1;
+    }
+}
@@ -0,0 +1,6 @@
+package com.test.game;
+
+// Enum to track user input stage
+enum InputStage {
+    NAME, SECRET, CLUE, GUESS, NONE
+}
@@ -0,0 +1,84 @@
+package com.test.game.loadtest;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+//Headless load generator: connects many simulated players to a local server, lets them play whole games
+//(name, secret and clue, guesses, chat, play again) and reports connection times, reaction latency and throughput.
+public class LoadTest {
+    static final String HOST = System.getProperty("hangman.load.host", "127.0.0.1");
+    static final int PORT = Integer.getInteger("hangman.load.port", 5000);
+    // Players to connect, paired by the server in arrival order
+    private static final int PLAYERS = Integer.getInteger("hangman.load.players", 1000);
+    // New connections per second while ramping up
+    private static final int CONNECTS_PER_SECOND = Integer.getInteger("hangman.load.connectsPerSecond", 500);
+    // Rounds every pair plays before both answer no
+    static final int ROUNDS = Integer.getInteger("hangman.load.rounds", 3);
+    // Delay between a prompt and the answer, 0 answers at once; sets the input rate of every player
+    static final long THINK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("hangman.load.thinkMs", 100));
+    // The guesser chats before every n-th guess, 0 for no chat
+    static final int CHAT_EVERY = Integer.getInteger("hangman.load.chatEvery", 5);
+    // binary: accept the server's frame protocol like GameScreen does, text: stay on lines like telnet
+    static final boolean BINARY = !System.getProperty("hangman.load.protocol", "binary").equalsIgnoreCase("text");
+    // Selector threads driving the players
+    private static final int THREADS = Integer.getInteger("hangman.load.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    // Give up on players that are still playing after this long
+    private static final int TIMEOUT_SECONDS = Integer.getInteger("hangman.load.timeoutSeconds", 300);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int players = PLAYERS + PLAYERS % 2; // an odd player would wait for an opponent forever
+        System.out.println("Load test: " + players + " players on " + HOST + ":" + PORT + ", " + (BINARY ? "binary" : "text")
+                + ", " + ROUNDS + " rounds, " + TimeUnit.NANOSECONDS.toMillis(THINK_NANOS) + " ms think time, " + THREADS + " threads");
+
+        CountDownLatch finished = new CountDownLatch(players);
+        PlayerLoop[] loops = new PlayerLoop[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new PlayerLoop(finished);
+            threads[i] = new Thread(loops[i], "load-" + i);
+            threads[i].start();
+        }
+
+        //ramp up at a steady rate so the server's accept backlog never overflows
+        long start = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, CONNECTS_PER_SECOND);
+        for (int i = 0; i < players; i++) {
+            long ahead = start + i * interval - System.nanoTime();
+            if (ahead > 0) TimeUnit.NANOSECONDS.sleep(ahead);
+            loops[i % loops.length].add(new SimulatedPlayer(i + 1, loops[i % loops.length]));
+        }
+
+        //progress every five seconds until everyone is done or time is up
+        long deadline = start + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!finished.await(5, TimeUnit.SECONDS)) {
+            System.out.println("  " + (players - finished.getCount()) + " of " + players + " players done");
+            if (System.nanoTime() - deadline > 0) break;
+        }
+        long elapsed = System.nanoTime() - start;
+        for (int i = 0; i < loops.length; i++) {
+            loops[i].stop();
+            threads[i].join();
+        }
+
+        Stats total = new Stats();
+        for (PlayerLoop loop : loops) {
+            total.addAll(loop.stats);
+        }
+        report(total, players, players - (int) finished.getCount(), elapsed);
+    }
+
+    private static void report(Stats total, int players, int done, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println(String.format("Finished %d of %d players in %.1f s", done, players, seconds));
+        System.out.println("Failed connections: " + total.failedConnections + ", partner left early: " + total.partnersLost);
+        System.out.println("Rounds played:      " + total.roundsPlayed);
+        System.out.println("Connect:            " + total.connectTimes.summary());
+        System.out.println("Name prompt:        " + total.promptTimes.summary());
+        System.out.println("Input to reply:     " + total.latencies.summary());
+        System.out.println("Redirect to seat:   " + total.redirectTimes.summary());
+        System.out.println(String.format("Throughput:         %.0f messages/s received, %.0f inputs/s sent (%d chat lines)",
+                total.messagesReceived / seconds, total.inputsSent / seconds, total.chatsSent));
+    }
+}
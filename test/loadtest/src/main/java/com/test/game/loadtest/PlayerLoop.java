@@ -0,0 +1,99 @@
+package com.test.game.loadtest;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+//One selector thread driving many simulated players: their sockets and the delayed answers they have planned.
+class PlayerLoop implements Runnable {
+    //An answer a player sends once its think time is over
+    private static final class Timer {
+        final long due;
+        final SimulatedPlayer player;
+
+        Timer(long due, SimulatedPlayer player) {
+            this.due = due;
+            this.player = player;
+        }
+    }
+
+    private final Selector selector;
+    private final Queue<SimulatedPlayer> newPlayers = new ConcurrentLinkedQueue<>(); //created, not connected yet
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+    private final CountDownLatch finished; //counted down once per player whose connection ended
+    final Stats stats = new Stats();
+    private volatile boolean running = true;
+
+    PlayerLoop(CountDownLatch finished) throws IOException {
+        this.finished = finished;
+        selector = Selector.open();
+    }
+
+    //Called by the main thread, the player connects on the loop thread itself
+    void add(SimulatedPlayer player) {
+        newPlayers.add(player);
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    //Loop thread only
+    void schedule(SimulatedPlayer player, long delayNanos) {
+        timers.add(new Timer(System.nanoTime() + delayNanos, player));
+    }
+
+    //Loop thread only, once per player
+    void playerDone() {
+        finished.countDown();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                Timer next = timers.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long wait = (next.due - System.nanoTime()) / 1_000_000;
+                    if (wait > 0) selector.select(wait); else selector.selectNow();
+                }
+                SimulatedPlayer player;
+                while ((player = newPlayers.poll()) != null) {
+                    player.connect(selector);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    player = (SimulatedPlayer) key.attachment();
+                    if (key.isValid() && key.isConnectable()) player.onConnectable();
+                    if (key.isValid() && key.isReadable()) player.onReadable();
+                    if (key.isValid() && key.isWritable()) player.onWritable();
+                }
+                long now = System.nanoTime();
+                while ((next = timers.peek()) != null && next.due - now <= 0) {
+                    timers.poll().player.onTimer();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((SimulatedPlayer) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.test.game.loadtest;
+
+import java.util.Arrays;
+
+//Durations in nanoseconds, kept in full so percentiles are exact. Used by one thread at a time.
+class Samples {
+    private long[] values = new long[1024];
+    private int count = 0;
+
+    void add(long nanos) {
+        if (count == values.length) values = Arrays.copyOf(values, count * 2);
+        values[count++] = nanos;
+    }
+
+    void addAll(Samples other) {
+        for (int i = 0; i < other.count; i++) add(other.values[i]);
+    }
+
+    int count() {
+        return count;
+    }
+
+    //p between 0 and 1, e.g. 0.99. Sorts the samples, call once they are all in.
+    long percentile(double p) {
+        if (count == 0) return 0;
+        Arrays.sort(values, 0, count);
+        int rank = (int) Math.ceil(p * count);
+        return values[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    //"p50 1.2 ms  p90 ...", or "none" without samples
+    String summary() {
+        if (count == 0) return "none";
+        return "p50 " + millis(percentile(0.5)) + "  p90 " + millis(percentile(0.9)) + "  p99 " + millis(percentile(0.99))
+                + "  p99.9 " + millis(percentile(0.999)) + "  max " + millis(percentile(1)) + "  (" + count + " samples)";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f ms", nanos / 1e6);
+    }
+}
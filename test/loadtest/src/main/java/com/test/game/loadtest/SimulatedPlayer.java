@@ -0,0 +1,336 @@
+package com.test.game.loadtest;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.TextCodec;
+import com.test.game.net.WireCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+
+//One headless player. Answers prompts the way a person at GameScreen would, after a think time,
+//and times how long the server takes to react to each input.
+class SimulatedPlayer {
+    // Most frequent English letters first
+    private static final String GUESSES = "etaoinshrdlucmfwypvbgkjqxz";
+    private static final String[] WORDS = {"hangman", "socket", "selector", "protocol", "latency", "throughput", "gallows"};
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final int id;
+    private final String name;
+    private final PlayerLoop loop;
+    private final Stats stats;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+    private byte[] input = new byte[256]; //line or frame being received
+    private int inputLength = 0;
+    private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+    private boolean binary = false; //true once the server accepted our offer
+    private boolean closed = false;
+    private String host = LoadTest.HOST; //a cluster's front sends us on to a node once we are paired
+    private int port = LoadTest.PORT;
+    private String ticket; //to claim our seat with on that node
+    private long redirectedAt;
+
+    private long connectStarted;
+    private long sentAt = 0; //when the input still waiting for its first answer went out, 0 for none
+    private Message planned; //sent when the think time is over
+    private boolean guessAfterChat = false; //our chat line has to come back before we guess
+    private int guessIndex = 0;
+    private int guessesMade = 0;
+    private int rounds = 0;
+    private boolean done = false;
+
+    SimulatedPlayer(int id, PlayerLoop loop) {
+        this.id = id;
+        this.name = "bot" + id;
+        this.loop = loop;
+        this.stats = loop.stats;
+    }
+
+    //Loop thread: start a non-blocking connect
+    void connect(Selector selector) {
+        connectStarted = System.nanoTime();
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            if (channel.connect(new InetSocketAddress(host, port))) {
+                stats.connectTimes.add(System.nanoTime() - connectStarted);
+                key = channel.register(selector, SelectionKey.OP_READ, this);
+            } else {
+                key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+            }
+        } catch (IOException e) {
+            stats.failedConnections++;
+            finish();
+        }
+    }
+
+    void onConnectable() {
+        try {
+            if (!channel.finishConnect()) return;
+            stats.connectTimes.add(System.nanoTime() - connectStarted);
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            stats.failedConnections++;
+            finish();
+        }
+    }
+
+    void onReadable() {
+        int n;
+        try {
+            n = channel.read(readBuffer);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            finish();
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining() && !closed) {
+            if (binary) {
+                readFrame();
+            } else {
+                readLine();
+            }
+        }
+        readBuffer.clear();
+    }
+
+    private void readLine() {
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                int length = inputLength;
+                if (length > 0 && input[length - 1] == '\r') length--;
+                inputLength = 0;
+                onLine(new String(input, 0, length, CHARSET));
+                return; // the line may have switched us to binary
+            }
+            append(b);
+        }
+    }
+
+    private void readFrame() {
+        while (readBuffer.hasRemaining()) {
+            append(readBuffer.get());
+            if (inputLength < WireCodec.HEADER_BYTES) continue;
+            int body = ((input[0] & 0xFF) << 8) | (input[1] & 0xFF);
+            if (inputLength == WireCodec.HEADER_BYTES + body) {
+                inputLength = 0;
+                Message m;
+                try {
+                    m = WireCodec.decode(ByteBuffer.wrap(input, WireCodec.HEADER_BYTES, body).slice());
+                } catch (ProtocolException e) {
+                    e.printStackTrace(); // the server sent something we can't read, this player is done
+                    finish();
+                    return;
+                }
+                if (m != null) onMessage(m);
+                return;
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (inputLength == input.length) {
+            byte[] bigger = new byte[input.length * 2];
+            System.arraycopy(input, 0, bigger, 0, inputLength);
+            input = bigger;
+        }
+        input[inputLength++] = b;
+    }
+
+    //Text lines, including the handshake that may switch us to frames
+    private void onLine(String line) {
+        if (line.contains(TextCodec.OFFER)) {
+            stats.promptTimes.add(System.nanoTime() - connectStarted);
+            if (LoadTest.BINARY) {
+                write(ByteBuffer.wrap((TextCodec.OFFER + "\n").getBytes(CHARSET)));
+                return; // the name follows once the server accepted
+            }
+        } else if (line.equals(TextCodec.ACCEPT)) {
+            binary = true;
+            if (ticket != null) {
+                write(WireCodec.encode(Message.session(ticket))); // on the node now, claim the seat right away
+                ticket = null;
+            } else {
+                plan(Message.input(name));
+            }
+            return;
+        }
+        onMessage(TextCodec.parse(line));
+    }
+
+    private void onMessage(Message m) {
+        if (m.type == MessageType.PING) {
+            write(WireCodec.encode(Message.pong())); // heartbeat, not an answer to anything we sent
+            return;
+        }
+        stats.messagesReceived++;
+        if (sentAt != 0) {
+            stats.latencies.add(System.nanoTime() - sentAt);
+            sentAt = 0;
+        }
+        switch (m.type) {
+            case PROMPT:
+                onPrompt(m.code);
+                break;
+            case REDIRECT:
+                redirect(m);
+                break;
+            case WELCOME:
+                if (redirectedAt != 0) {
+                    stats.redirectTimes.add(System.nanoTime() - redirectedAt);
+                    redirectedAt = 0;
+                }
+                break;
+            case ROUND_START:
+                guessIndex = 0;
+                break;
+            case CHAT:
+                if (guessAfterChat && name.equals(m.name)) {
+                    guessAfterChat = false;
+                    plan(nextGuess());
+                }
+                break;
+            case NOTICE:
+                if (guessAfterChat && m.code == Message.NOTICE_SLOW_DOWN) { // our chat line was refused, guess anyway
+                    guessAfterChat = false;
+                    plan(nextGuess());
+                }
+                break;
+            case DISCONNECT:
+                if (m.code != Message.BYE) stats.partnersLost++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    //Our match is on another node: drop this connection and connect there
+    private void redirect(Message m) {
+        Selector selector = key.selector();
+        readBuffer.position(readBuffer.limit()); // nothing after the redirect belongs to us
+        close();
+        host = m.name;
+        port = m.value;
+        ticket = m.text;
+        redirectedAt = System.nanoTime();
+        closed = false;
+        binary = false;
+        inputLength = 0;
+        pendingWrites.clear();
+        connect(selector);
+    }
+
+    private void onPrompt(int which) {
+        switch (which) {
+            case Message.PROMPT_NAME:
+                plan(Message.input(name));
+                break;
+            case Message.PROMPT_SECRET:
+                plan(Message.input(WORDS[(id + rounds) % WORDS.length]));
+                break;
+            case Message.PROMPT_CLUE:
+                plan(Message.input("a word from the load test"));
+                break;
+            case Message.PROMPT_LETTER:
+                if (LoadTest.CHAT_EVERY > 0 && ++guessesMade % LoadTest.CHAT_EVERY == 0) {
+                    guessAfterChat = true;
+                    plan(Message.chat(name, "still thinking... (" + guessesMade + ")"));
+                } else {
+                    plan(nextGuess());
+                }
+                break;
+            case Message.PROMPT_PLAY_AGAIN:
+                rounds++;
+                if (guessIndex > 0) stats.roundsPlayed++; // only the guesser counts, every round once
+                plan(Message.input(rounds < LoadTest.ROUNDS ? "yes" : "no"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Message nextGuess() {
+        return Message.guess(GUESSES.charAt(guessIndex++ % GUESSES.length()), true);
+    }
+
+    //Answer after the think time, or right away without one
+    private void plan(Message m) {
+        if (LoadTest.THINK_NANOS <= 0) {
+            send(m);
+            return;
+        }
+        planned = m;
+        loop.schedule(this, LoadTest.THINK_NANOS);
+    }
+
+    void onTimer() {
+        Message m = planned;
+        planned = null;
+        if (m != null && !closed) send(m);
+    }
+
+    private void send(Message m) {
+        ByteBuffer bytes = binary ? WireCodec.encode(m) : ByteBuffer.wrap((TextCodec.formatInput(m) + "\n").getBytes(CHARSET));
+        stats.inputsSent++;
+        if (m.type == MessageType.CHAT) stats.chatsSent++;
+        sentAt = System.nanoTime();
+        write(bytes);
+    }
+
+    private void write(ByteBuffer bytes) {
+        pendingWrites.add(bytes);
+        onWritable();
+    }
+
+    void onWritable() {
+        try {
+            while (!pendingWrites.isEmpty()) {
+                ByteBuffer next = pendingWrites.peek();
+                channel.write(next);
+                if (next.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingWrites.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            finish();
+        }
+    }
+
+    //The server closed the connection (or it failed): this player is done
+    private void finish() {
+        close();
+        if (!done) {
+            done = true;
+            loop.playerDone();
+        }
+    }
+
+    void close() {
+        if (closed) return;
+        closed = true;
+        if (key != null) key.cancel();
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
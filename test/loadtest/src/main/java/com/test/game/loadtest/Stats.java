@@ -0,0 +1,28 @@
+package com.test.game.loadtest;
+
+//What one PlayerLoop measured. Only its loop thread writes it, the totals are merged after the loops stopped.
+class Stats {
+    final Samples connectTimes = new Samples(); //connect call until the TCP connection is up
+    final Samples promptTimes = new Samples(); //connect call until the name prompt arrived
+    final Samples latencies = new Samples(); //an input until the first message the server sent after it
+    final Samples redirectTimes = new Samples(); //a cluster's redirect until the node seated us
+    long messagesReceived;
+    long inputsSent;
+    long chatsSent;
+    long roundsPlayed; //counted by the guesser only, so every round once
+    int failedConnections;
+    int partnersLost; //the other player left or said no before we were done
+
+    void addAll(Stats other) {
+        connectTimes.addAll(other.connectTimes);
+        promptTimes.addAll(other.promptTimes);
+        latencies.addAll(other.latencies);
+        redirectTimes.addAll(other.redirectTimes);
+        messagesReceived += other.messagesReceived;
+        inputsSent += other.inputsSent;
+        chatsSent += other.chatsSent;
+        roundsPlayed += other.roundsPlayed;
+        failedConnections += other.failedConnections;
+        partnersLost += other.partnersLost;
+    }
+}
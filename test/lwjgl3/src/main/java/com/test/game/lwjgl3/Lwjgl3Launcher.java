@@ -6,6 +6,9 @@ import com.test.game.HangmanClient;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
+    /** How often an idle client looks for input, -Dhangman.idleFps to change it. */
+    private static final int IDLE_FPS = Integer.getInteger("hangman.idleFps", 30);
+
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired()) return; // This handles macOS support and helps on Windows.
         createApplication();
@@ -28,6 +31,10 @@ public class Lwjgl3Launcher {
         //// useful for testing performance, but can also be very stressful to some hardware.
         //// You may also need to configure GPU drivers to fully disable Vsync; this can cause screen tearing.
 
+        // The client only draws when something changes (see HangmanClient). While nothing does, the loop sleeps
+        // 1 / IDLE_FPS s between looks for input, so an idle client wakes this often and draws nothing.
+        configuration.setIdleFPS(IDLE_FPS);
+
         configuration.setWindowedMode(640, 480);
         //// You can change these files; they are in lwjgl3/src/main/resources/ .
         //// They can also be loaded from the root of assets/ .
@@ -0,0 +1,176 @@
+package com.test.game.server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Client served by its own (virtual or platform) thread that simply blocks until the socket has bytes.
+//Output is written by a separate writer task, so a player that stops reading only stalls that task and not its room.
+class BlockingClientHandler extends ClientHandler implements Runnable {
+    private static final int READ_BUFFER_BYTES = 512; //lines and frames are short, keep idle connections small
+
+    private final Socket socket;
+    private final Executor writers;
+    private InputStream in;
+    private OutputStream out;
+    private final ReentrantLock writeLock = new ReentrantLock(); //not synchronized, see GameRoom
+    private final ArrayList<ByteBuffer> outbox = new ArrayList<>(); //queued since the last flush
+    private int pendingBytes = 0; //queued or being written
+    private boolean draining = false; //a writer task is running
+    private volatile long writingSince = 0; //System.nanoTime() when the writer task's current write started, 0 when not writing
+    private boolean closeWhenFlushed = false;
+    private byte[] batch = new byte[256]; //only touched by the writer task
+
+    public BlockingClientHandler(Socket socket, Lobby lobby, Executor writers) {
+        super(lobby);
+        this.socket = socket;
+        this.writers = writers;
+        try {
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            greet();
+            byte[] buffer = new byte[READ_BUFFER_BYTES];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                onBytes(ByteBuffer.wrap(buffer, 0, n));
+            }
+        } catch (IOException e) {
+            // closed by us or reset by the peer, both end the connection
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // a bug handling this client ends its connection and nothing else
+        }
+        boolean closedByRoom;
+        writeLock.lock();
+        try {
+            closedByRoom = closeWhenFlushed;
+        } finally {
+            writeLock.unlock();
+        }
+        closeSocket();
+        Metrics.connectionsClosed.increment();
+        if (!closedByRoom) onDisconnect();
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) {
+        writeLock.lock();
+        try {
+            if (closeWhenFlushed) return;
+            outbox.add(bytes);
+            pendingBytes += bytes.remaining();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean flush() {
+        writeLock.lock();
+        try {
+            if (!outbox.isEmpty()) Metrics.sendQueueBytes.record(pendingBytes);
+            if (pendingBytes > MAX_PENDING_BYTES) {
+                outbox.clear();
+                closeSocket(); // it stopped reading, don't let it pile up memory
+                return false;
+            }
+            if (outbox.isEmpty() || draining) return true; // a running writer task picks the new output up
+            draining = true;
+        } finally {
+            writeLock.unlock();
+        }
+        writers.execute(this::drain);
+        return true;
+    }
+
+    //Writer task: copy everything queued into one array and write it with a single call, until nothing is left
+    private void drain() {
+        while (true) {
+            int length = 0;
+            writeLock.lock();
+            try {
+                if (outbox.isEmpty()) {
+                    draining = false;
+                    if (closeWhenFlushed) closeSocket();
+                    return;
+                }
+                if (batch.length < pendingBytes) batch = new byte[Math.max(pendingBytes, batch.length * 2)];
+                for (ByteBuffer bytes : outbox) {
+                    int n = bytes.remaining();
+                    System.arraycopy(bytes.array(), bytes.arrayOffset() + bytes.position(), batch, length, n);
+                    length += n;
+                }
+                outbox.clear();
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                writingSince = System.nanoTime();
+                out.write(batch, 0, length);
+                Metrics.bytesOut.add(length);
+            } catch (IOException e) {
+                closeSocket();
+            } finally {
+                writingSince = 0;
+            }
+            writeLock.lock();
+            try {
+                pendingBytes -= length;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    //Let the writer task finish what is queued, then close
+    @Override
+    public void closeConnection() {
+        boolean idle;
+        writeLock.lock();
+        try {
+            closeWhenFlushed = true;
+            idle = outbox.isEmpty() && !draining;
+        } finally {
+            writeLock.unlock();
+        }
+        if (idle) {
+            closeSocket();
+        } else {
+            flush();
+        }
+    }
+
+    @Override
+    protected long writeStalledSince() {
+        return writingSince;
+    }
+
+    //Closing the socket ends a blocked write and wakes the reading thread, which reports the disconnect
+    @Override
+    protected void abort() {
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return socket.isClosed();
+    }
+}
@@ -0,0 +1,102 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//The computer opponent: a player without a connection that the room talks to like any other.
+//It reads the room's messages directly, works out its answer at once and hands it to the room after a think time,
+//on the timer wheel, so a room never handles the bot's input in the middle of sending to it.
+//As chooser it picks a word and clue from the dictionary, as guesser it asks the word index for the best letter.
+class BotPlayer extends ClientHandler {
+    static final String NAME = "Computer";
+    //How long the bot seems to think before each answer
+    private static final int THINK_MILLIS = Integer.getInteger("hangman.botThinkMillis", 700);
+
+    private final Lobby lobby;
+    private final Dictionary words = Dictionary.get();
+    private final WordIndex.Search search = words.index.search();
+    private final Random random = new Random();
+    private String secret; //the word we chose, while the room asks for it and its clue
+
+    BotPlayer(Lobby lobby) {
+        super(lobby, NAME);
+        this.lobby = lobby;
+    }
+
+    //Called by the room, under its lock
+    @Override
+    public void send(Message m) {
+        switch (m.type) {
+            case PROMPT:
+                onPrompt(m.code);
+                break;
+            case SNAPSHOT:
+                if (m.code == Message.ROLE_GUESSER) search.start(m.text.length());
+                break;
+            case DELTA:
+                if (m.code == Message.RESULT_CORRECT) {
+                    search.hit(m.letter, m.mask);
+                } else if (m.code == Message.RESULT_WRONG) {
+                    search.miss(m.letter);
+                }
+                break;
+            default:
+                break; // the rest is for people to read
+        }
+    }
+
+    private void onPrompt(int which) {
+        switch (which) {
+            case Message.PROMPT_SECRET:
+                secret = words.random(random, 0, Dictionary.ANY);
+                answer(secret);
+                break;
+            case Message.PROMPT_CLUE:
+                answer(words.clue(secret));
+                break;
+            case Message.PROMPT_LETTER:
+                answer(String.valueOf(search.next()));
+                break;
+            case Message.PROMPT_PLAY_AGAIN:
+                answer("yes"); // as long as the person wants to
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void answer(String input) {
+        GameRoom room = getRoom();
+        lobby.timers.schedule(() -> room.onInput(this, input), THINK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) {
+    }
+
+    @Override
+    public boolean flush() {
+        return true;
+    }
+
+    @Override
+    public void closeConnection() {
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    protected void abort() {
+    }
+
+    @Override
+    protected long writeStalledSince() {
+        return 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.test.game.server;
+
+import java.util.function.Consumer;
+
+//Messages between the nodes of a cluster: the front places rooms on nodes, the nodes report their load and round results.
+//Nodes never call each other directly, so they only have to share a bus to be split over processes or machines.
+interface Bus {
+    //Hands the payload to every subscriber of the topic, in publishing order, without waiting for them
+    void publish(String topic, byte[] payload);
+
+    //Handlers run on the bus's own thread and must be quick, everything published after waits for them
+    void subscribe(String topic, Consumer<byte[]> handler);
+}
@@ -0,0 +1,60 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Pub/sub: every room has a chat channel and one for its spectators, the lobby a chat channel for everyone waiting.
+//A message is encoded once per protocol and the same bytes are queued for every subscriber. Publishing never
+//blocks: a subscriber that doesn't read only fills its own queue until it is dropped.
+class Channel {
+    private final Set<ClientHandler> subscribers = ConcurrentHashMap.newKeySet();
+
+    void subscribe(ClientHandler client) {
+        subscribers.add(client);
+    }
+
+    void unsubscribe(ClientHandler client) {
+        subscribers.remove(client);
+    }
+
+    void clear() {
+        subscribers.clear();
+    }
+
+    int size() {
+        return subscribers.size();
+    }
+
+    //Close every subscriber once what it was sent has gone out, and forget them
+    void closeAll() {
+        for (ClientHandler client : subscribers) {
+            client.closeConnection();
+        }
+        subscribers.clear();
+    }
+
+    //Queue and send right away
+    public void publish(Message message) {
+        queue(message);
+        flush();
+    }
+
+    //Queue for every subscriber, it goes out with the next flush
+    public void queue(Message message) {
+        for (ClientHandler client : subscribers) {
+            client.send(message);
+        }
+    }
+
+    public void flush() {
+        for (ClientHandler client : subscribers) {
+            if (!client.flush()) {
+                Metrics.dropped.increment();
+                unsubscribe(client);
+                client.onDisconnect(); // too slow to keep up, it was dropped
+            }
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.TextCodec;
+import com.test.game.net.WireCodec;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Class to handle each client. Subclasses move the bytes, this class cuts them into lines or frames and decides where they go.
+abstract class ClientHandler {
+    private static final int MAX_LINE = 4096; //longer lines are cut off
+    //Output a client may have waiting before it counts as too slow and is dropped
+    protected static final int MAX_PENDING_BYTES = Integer.getInteger("hangman.maxPendingBytes", 64 * 1024);
+    private static final Charset CHARSET = Charset.defaultCharset();
+    //Heartbeats: a binary client quiet this long gets a PING, it answers with a PONG
+    private static final long PING_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger("hangman.pingSeconds", 10));
+    //Read deadlines: a binary client silent this long despite the pings is dead. Text clients can't answer pings, they get longer.
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger("hangman.idleSeconds", 30));
+    private static final long TEXT_IDLE_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger("hangman.textIdleSeconds", 300));
+    //Write deadline: output waiting this long without any of it reaching the socket
+    private static final long WRITE_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger("hangman.writeTimeoutSeconds", 30));
+    //Chat rate limit per player: a burst of this many lines, then this many per second
+    private static final int CHAT_BURST = Integer.getInteger("hangman.chatBurst", 5);
+    private static final double CHAT_PER_SECOND = Double.parseDouble(System.getProperty("hangman.chatPerSecond", "2"));
+    //Players listed for @top
+    private static final int TOP_PLAYERS = 10;
+    private static final ByteBuffer PING_FRAME = WireCodec.encode(Message.ping()), PONG_FRAME = WireCodec.encode(Message.pong());
+
+    private final Lobby lobby;
+    private volatile String name; //set on the bus thread for a player a cluster node seats
+    private volatile GameRoom room;
+    private volatile String session; //token to take this seat back after a dropped connection, binary players only
+    private volatile boolean spectating = false; //watches `room` instead of playing in it
+    private volatile boolean binary = false; //switched on when the client answers our protocol offer
+    private final AtomicBoolean disconnected = new AtomicBoolean(); //onDisconnect runs once
+    private byte[] input = new byte[64]; //bytes of the line or frame being received
+    private int inputLength = 0;
+    private long inputArrived; //System.nanoTime() when the bytes being dispatched were read
+    private volatile long lastHeard; //System.nanoTime() of the last bytes from the client
+    private long lastPing; //when we last pinged, timer wheel only
+    private volatile TimerWheel.Timeout watch; //next liveness check
+    private final TokenBucket chatLimit = new TokenBucket(CHAT_PER_SECOND, CHAT_BURST);
+
+    protected ClientHandler(Lobby lobby) {
+        this.lobby = lobby;
+        Metrics.connectionsOpened.increment();
+    }
+
+    //A player the server runs itself: no connection, no handshake, binary so it gets snapshots and deltas
+    protected ClientHandler(Lobby lobby, String name) {
+        this.lobby = lobby;
+        this.name = name;
+        this.binary = true;
+    }
+
+    //Queue bytes for the next flush, subclasses keep them in order and add nothing
+    protected abstract void write(ByteBuffer bytes);
+
+    //Hand everything queued since the last flush to the socket in one write, without blocking the caller.
+    //Returns false when too much output was waiting: the connection has then been closed.
+    public abstract boolean flush();
+
+    //Close once everything already sent has left the server
+    public abstract void closeConnection();
+
+    protected abstract boolean isClosed();
+
+    //Close at once, dropping any output still waiting
+    protected abstract void abort();
+
+    //System.nanoTime() since when output has been waiting without any of it being written, 0 if none is waiting
+    protected abstract long writeStalledSince();
+
+    //First message on every connection: the name prompt plus our offer to switch to binary frames
+    protected void greet() {
+        lastHeard = System.nanoTime();
+        lastPing = lastHeard;
+        watch(Math.min(PING_NANOS, Math.min(TEXT_IDLE_NANOS, WRITE_NANOS))); //the handshake decides which deadlines apply
+        sendMessage(TextCodec.format(Message.prompt(Message.PROMPT_NAME)) + " " + TextCodec.OFFER);
+        flush();
+    }
+
+    private void watch(long delayNanos) {
+        watch = lobby.timers.schedule(this::checkAlive, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    //Runs on the timer wheel: pings a quiet binary client, drops one that stays silent or stops taking its output.
+    //Only the next deadline is scheduled, so a busy connection costs one check per deadline and not one per read.
+    private void checkAlive() {
+        if (disconnected.get() || isClosed()) return;
+        long now = System.nanoTime();
+        long heard = lastHeard, stalled = writeStalledSince();
+        long idle = binary ? IDLE_NANOS : TEXT_IDLE_NANOS;
+        if (now - heard >= idle) {
+            timedOut("nothing received for " + TimeUnit.NANOSECONDS.toSeconds(now - heard) + " s");
+            return;
+        }
+        if (stalled != 0 && now - stalled >= WRITE_NANOS) {
+            timedOut("output not taken for " + TimeUnit.NANOSECONDS.toSeconds(now - stalled) + " s");
+            return;
+        }
+        long next = heard + idle;
+        if (binary) {
+            long quietSince = Math.max(heard, lastPing);
+            if (now - quietSince >= PING_NANOS) {
+                lastPing = now;
+                quietSince = now;
+                write(PING_FRAME.duplicate());
+                if (!flush()) {
+                    onDisconnect();
+                    return;
+                }
+            }
+            next = Math.min(next, quietSince + PING_NANOS);
+        }
+        next = Math.min(next, stalled != 0 ? stalled + WRITE_NANOS : now + WRITE_NANOS);
+        watch(next - now);
+    }
+
+    //A frame we can't make sense of: the client is broken or hostile, drop it and nobody else
+    private void malformed(String reason) {
+        System.out.println("Client sent a malformed frame: " + reason);
+        abort();
+        onDisconnect();
+    }
+
+    private void timedOut(String reason) {
+        System.out.println("Client timed out: " + reason);
+        Metrics.timedOut.increment();
+        abort();
+        onDisconnect();
+    }
+
+    //Feed received bytes, every complete line or frame is dispatched before returning
+    protected void onBytes(ByteBuffer bytes) {
+        inputArrived = System.nanoTime();
+        lastHeard = inputArrived;
+        Metrics.bytesIn.add(bytes.remaining());
+        while (bytes.hasRemaining() && !isClosed()) {
+            if (binary) {
+                readFrame(bytes);
+            } else {
+                readLine(bytes);
+            }
+        }
+        //rooms flush what they send, this covers the handshake and welcome lines
+        if (!flush()) onDisconnect();
+    }
+
+    private void readLine(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get();
+            if (b == '\n') {
+                int length = inputLength;
+                if (length > 0 && input[length - 1] == '\r') length--;
+                inputLength = 0;
+                onLine(new String(input, 0, length, CHARSET));
+                return; // the line may have switched us to binary
+            } else if (inputLength < MAX_LINE) {
+                append(b);
+            }
+        }
+    }
+
+    private void readFrame(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            append(bytes.get());
+            if (inputLength < WireCodec.HEADER_BYTES) continue;
+            int body = ((input[0] & 0xFF) << 8) | (input[1] & 0xFF);
+            if (inputLength == WireCodec.HEADER_BYTES + body) {
+                inputLength = 0;
+                Message m;
+                try {
+                    m = WireCodec.decode(ByteBuffer.wrap(input, WireCodec.HEADER_BYTES, body).slice());
+                } catch (ProtocolException e) {
+                    malformed(e.getMessage());
+                    return;
+                }
+                if (m != null) onFrame(m);
+                return;
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (inputLength == input.length) {
+            byte[] bigger = new byte[Math.min(input.length * 2, WireCodec.HEADER_BYTES + WireCodec.MAX_BODY)];
+            System.arraycopy(input, 0, bigger, 0, inputLength);
+            input = bigger;
+        }
+        input[inputLength++] = b;
+    }
+
+    //Frames carry the same inputs as text lines, so turn them back into lines for the room
+    private void onFrame(Message m) {
+        if (m.type == MessageType.PING) {
+            write(PONG_FRAME.duplicate()); // goes out with the flush at the end of onBytes
+        } else if (m.type == MessageType.CHAT || m.type == MessageType.GUESS || m.type == MessageType.INPUT
+                || m.type == MessageType.SNAPSHOT || m.type == MessageType.SESSION || m.type == MessageType.WATCH) {
+            onLine(oneLine(TextCodec.formatInput(m)));
+        }
+    }
+
+    //A text client can't send a line break inside a line, a frame can: they would split what we pass on to text
+    //players into several lines, each one read as a message of its own from the server
+    private static String oneLine(String text) {
+        if (text.indexOf('\n') < 0 && text.indexOf('\r') < 0) return text;
+        return text.replace('\n', ' ').replace('\r', ' ');
+    }
+
+    //The first line is the player's name, everything after belongs to the room
+    protected void onLine(String msg) {
+        if (msg.equals(TextCodec.TOP)) {
+            sendTop(); // anyone may ask, named or not
+            return;
+        }
+        if (spectating) {
+            if (msg.equals(TextCodec.RESYNC)) room.resyncSpectator(this); // read-only otherwise, chat included
+            return;
+        }
+        if (name == null) {
+            if (!binary && msg.equals(TextCodec.OFFER)) {
+                sendMessage(TextCodec.ACCEPT);
+                binary = true;
+                return;
+            }
+            if (msg.startsWith(TextCodec.RESUME)) {
+                resume(msg.substring(TextCodec.RESUME.length()));
+                return;
+            }
+            if (msg.startsWith(TextCodec.WATCH)) {
+                watch(msg.substring(TextCodec.WATCH.length()));
+                return;
+            }
+            name = msg;
+            System.out.println("Player joined: " + name);
+            send(Message.welcome(name));
+            Ratings.Standing standing = lobby.events.ratings.standing(name);
+            if (standing != null) {
+                send(Message.notice(Message.NOTICE_TEXT, "Your record: " + standing.wins + " won, " + standing.losses + " lost"));
+                send(Message.notice(Message.NOTICE_RANK, "Rating: " + standing.rating + ", rank " + standing.rank + " of " + standing.players));
+            }
+            if (binary) {
+                session = lobby.openSession(this);
+                send(Message.session(session));
+            } else {
+                send(Message.notice(Message.NOTICE_TEXT, "Waiting for an opponent. Type " + TextCodec.BOT + " to play against the computer."));
+            }
+            lobby.join(this);
+            return;
+        }
+        GameRoom current = room;
+        if (msg.equals(TextCodec.BOT)) {
+            if (current == null) lobby.playBot(this); // too late once paired
+            return;
+        }
+        if (msg.startsWith(TextCodec.CHAT)) {
+            String text = msg.substring(TextCodec.CHAT.length()).trim();
+            if (current != null) {
+                current.chat(this, text); // on the room's channel, without waiting for its lock
+            } else {
+                lobby.chat(this, text);
+            }
+        } else if (current != null) {
+            Metrics.inputs.increment();
+            current.onInput(this, msg);
+            Metrics.inputToFlush.record((System.nanoTime() - inputArrived) / 1000);
+        }
+    }
+
+    //Takes a token from this player's chat allowance, or tells them to slow down. Called on this player's thread.
+    boolean mayChat() {
+        if (chatLimit.tryTake()) return true;
+        Metrics.chatsLimited.increment();
+        send(Message.notice(Message.NOTICE_SLOW_DOWN, null));
+        return false;
+    }
+
+    //A player whose connection dropped takes their seat back: this connection replaces the old one in its room
+    //A cluster node also gets the tickets of the players and spectators the front sent it, through the same door
+    private void resume(String token) {
+        ClientHandler old = lobby.session(token);
+        GameRoom seat = old == null ? null : old.room;
+        if (seat != null) {
+            name = old.name;
+            session = token;
+            if (seat.resume(old, this)) {
+                System.out.println("Player resumed: " + name);
+                return;
+            }
+            name = null;
+            session = null;
+        }
+        if (old == null) {
+            session = token; // so a disconnect while we wait for the other player gives the seat up
+            if (lobby.claim(token, this)) return;
+        }
+        resumeFailed();
+    }
+
+    //The leaderboard's first page, one line per player
+    private void sendTop() {
+        List<Ratings.Standing> top = lobby.events.ratings.top(TOP_PLAYERS);
+        if (top.isEmpty()) {
+            send(Message.notice(Message.NOTICE_LEADERBOARD, "Top players: nobody has finished a round yet"));
+            return;
+        }
+        StringBuilder text = new StringBuilder("Top players of ").append(top.get(0).players).append(':');
+        for (Ratings.Standing player : top) {
+            text.append('\n').append(player.rank).append(". ").append(player.name).append(' ').append(player.rating)
+                    .append(" (").append(player.wins).append(" won, ").append(player.losses).append(" lost)");
+        }
+        send(Message.notice(Message.NOTICE_LEADERBOARD, text.toString()));
+    }
+
+    //Pushed after each of this player's rounds: the new rating and how far the rank moved
+    void standingChanged(Ratings.Standing before, Ratings.Standing after) {
+        if (after == null) return; // nothing is rated without an event log
+        StringBuilder text = new StringBuilder("Rating: ").append(after.rating);
+        int gained = after.rating - (before == null ? Ratings.INITIAL : before.rating);
+        text.append(" (").append(gained >= 0 ? "+" : "").append(gained).append(')');
+        text.append(", rank ").append(after.rank).append(" of ").append(after.players);
+        if (before != null && before.rank != after.rank) {
+            int moved = before.rank - after.rank;
+            text.append(moved > 0 ? " (up " : " (down ").append(Math.abs(moved)).append(')');
+        }
+        send(Message.notice(Message.NOTICE_RANK, text.toString()));
+    }
+
+    //The seat of a token is gone, start over with a name
+    void resumeFailed() {
+        session = null;
+        send(Message.prompt(Message.PROMPT_NAME));
+        send(Message.notice(Message.NOTICE_TEXT, "That game is over, please enter your name again."));
+        if (!flush()) onDisconnect();
+    }
+
+    //A cluster node seats a player the front sent here, the ticket is their session token from now on
+    void seated(String name, String ticket) {
+        this.name = name;
+        session = ticket;
+        System.out.println("Player arrived: " + name);
+        send(Message.welcome(name));
+        send(Message.session(ticket));
+    }
+
+    //A cluster node gave up waiting for this player's opponent
+    void opponentMissing(String other) {
+        send(Message.disconnect(Message.LEFT, other));
+        closeConnection();
+    }
+
+    //The cluster's front sends this client to the node holding its match
+    void redirect(String host, int port, String ticket) {
+        System.out.println((name == null ? "Spectator" : "Player " + name) + " sent to " + host + ":" + port);
+        send(Message.redirect(host, port, ticket));
+        closeConnection(); // flushes first
+    }
+
+    //Watch a room instead of playing: "@watch" for the featured match or "@watch:<room id>"
+    private void watch(String which) {
+        if (!binary) {
+            send(Message.notice(Message.NOTICE_TEXT, "Watching needs a client that speaks binary frames."));
+            return;
+        }
+        int roomId = 0;
+        try {
+            if (which.startsWith(":")) roomId = Integer.parseInt(which.substring(1).trim());
+        } catch (NumberFormatException e) {
+            // not a number, watch the featured match
+        }
+        spectate(roomId);
+    }
+
+    //Also called by a cluster node for a spectator the front sent here, on the bus thread
+    void spectate(int roomId) {
+        spectating = true; // before the room starts sending, so nothing from us reaches it as a player
+        if (lobby.watch(this, roomId)) return;
+        spectating = false;
+        send(Message.notice(Message.NOTICE_TEXT, "There is no match to watch right now."));
+        send(Message.prompt(Message.PROMPT_NAME));
+        if (!flush()) onDisconnect();
+    }
+
+    //The peer went away or was dropped: tell whoever was waiting on this player.
+    //A player who can resume keeps their seat for a while, anyone else leaves the room at once.
+    protected void onDisconnect() {
+        if (!disconnected.compareAndSet(false, true)) return;
+        TimerWheel.Timeout check = watch;
+        if (check != null) check.cancel();
+        GameRoom current = room;
+        if (current != null && spectating) {
+            current.unwatch(this);
+        } else if (current != null && session != null) {
+            current.playerAway(this);
+        } else if (current != null) {
+            current.playerLeft(this);
+        } else {
+            lobby.leave(this);
+            lobby.closeSession(session, this);
+        }
+        System.out.println("Client disconnected.");
+    }
+
+    //Queue a message in whichever protocol this client speaks, it goes out with the next flush
+    //Messages sent to several players are encoded once, each of them queues a view of the same bytes
+    public void send(Message m) {
+        write(binary ? WireCodec.frame(m) : WireCodec.line(m));
+    }
+
+    //Queue a raw text line, only used before and during the protocol handshake
+    public void sendMessage(String message) {
+        write(ByteBuffer.wrap((message + "\n").getBytes(CHARSET)));
+    }
+
+    //Binary clients get round updates as deltas, text clients get the full lines every turn
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public String getname() {
+        return name;
+    }
+
+    String getSession() {
+        return session;
+    }
+
+    GameRoom getRoom() {
+        return room;
+    }
+
+    void setRoom(GameRoom room) {
+        this.room = room;
+    }
+}
@@ -0,0 +1,108 @@
+package com.test.game.server;
+
+import java.io.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//Several server nodes behind one front. Players meet in the front's lobby; the front places each binary pair's room
+//on a node with a consistent-hash ring and sends both players there with a ticket. Every node has its own room limit,
+//so each added node adds that many rooms. Front and nodes only talk over the bus:
+//  seat/<node>  front -> node   a room or a spectator is coming, with the tickets to expect
+//  load         node -> front   rooms the node holds now, and the room that just closed
+//  result       node -> all     a finished round, so every node's scores stay current
+class Cluster {
+    static final int FRONT = -1; //node number of the front's own lobby
+    static final String LOAD = "load", RESULT = "result";
+    static final byte SEAT_PLAYERS = 0, SEAT_SPECTATOR = 1;
+    private static final int RING_POINTS = 100; //points per node on the ring
+
+    final Bus bus;
+    private final String host;
+    private final int[] ports;
+    private final int capacity; //room limit of every node
+    private final HashRing ring;
+    private final AtomicIntegerArray rooms; //front's view of each node: rooms last reported plus those placed since
+
+    Cluster(Bus bus, String host, int[] ports, int capacity) {
+        this.bus = bus;
+        this.host = host;
+        this.ports = ports;
+        this.capacity = capacity;
+        this.ring = new HashRing(ports.length, RING_POINTS);
+        this.rooms = new AtomicIntegerArray(ports.length);
+    }
+
+    static String seats(int node) {
+        return "seat/" + node;
+    }
+
+    int size() {
+        return ports.length;
+    }
+
+    //All nodes of one process share the host, nodes on other machines would each have their own
+    String host(int node) {
+        return host;
+    }
+
+    int port(int node) {
+        return ports[node];
+    }
+
+    //Node for a new room: the ring's owner of its id, or the next one round the ring with a free slot. -1 if all are full.
+    //The slot counts as taken at once, the node's next report corrects it.
+    int place(int roomId) {
+        int node = ring.nodeFor(roomId, n -> rooms.get(n) < capacity);
+        if (node >= 0) rooms.incrementAndGet(node);
+        return node;
+    }
+
+    //Node holding the most rooms, the best bet for the featured match. -1 if no node has any.
+    int busiest() {
+        int best = -1;
+        for (int node = 0; node < ports.length; node++) {
+            if (rooms.get(node) > 0 && (best < 0 || rooms.get(node) > rooms.get(best))) best = node;
+        }
+        return best;
+    }
+
+    void reported(int node, int count) {
+        rooms.set(node, count);
+    }
+
+    int activeRooms() {
+        int total = 0;
+        for (int node = 0; node < ports.length; node++) {
+            total += rooms.get(node);
+        }
+        return total;
+    }
+
+    //Payloads are a few fields written with DataOutputStream, one writer and one reader per topic
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    interface Reader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    void publish(String topic, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a byte array never fails
+        }
+        bus.publish(topic, bytes.toByteArray());
+    }
+
+    void subscribe(String topic, Reader reader) {
+        bus.subscribe(topic, payload -> {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                reader.read(in);
+            } catch (IOException e) {
+                System.out.println("Bad message on " + topic + ": " + e);
+            }
+        });
+    }
+}
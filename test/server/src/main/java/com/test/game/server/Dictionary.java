@@ -0,0 +1,269 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+//Word list of the server, from -Dhangman.words=<file> or the short list bundled with the server: the computer
+//opponent's words, random words for choosers who ask for one, and the words secrets are checked against.
+//One word per line, optionally followed by a tab and a clue; blank lines and lines starting with # are skipped.
+//Only words of letters a-z are kept, in lower case. Loaded once, on first use.
+//
+//Words are kept as letters 0..25, one byte each, in one array per length: every word of a length has the same width,
+//so the arrays need no offsets or separators and a word is found by binary search. Each array is sorted by difficulty
+//first and alphabetically within a difficulty. About 1 byte per letter plus the clues: 9 MB for a million words.
+final class Dictionary {
+    static final int EASY = 0, MEDIUM = 1, HARD = 2, ANY = -1;
+    static final String[] LEVEL_NAMES = {"easy", "medium", "hard"};
+    private static final int LEVELS = 3;
+    private static final String FILE = System.getProperty("hangman.words");
+    //Difficulty is how many wrong letters a guesser trying letters by English frequency makes before it has them all
+    private static final char[] BY_FREQUENCY = "etaoinshrdlucmfwypvbgkjqxz".toCharArray();
+    private static final int EASY_MISSES = 8, MEDIUM_MISSES = 13;
+
+    private static final class Holder {
+        static final Dictionary WORDS = load();
+    }
+
+    //Words of one length
+    static final class Block {
+        final int length, count;
+        final byte[] letters; //word i starts at i * length
+        final int[] starts = new int[LEVELS + 1]; //words of level l are starts[l] .. starts[l + 1] - 1
+
+        Block(int length, int count, byte[] letters) {
+            this.length = length;
+            this.count = count;
+            this.letters = letters;
+        }
+
+        String word(int i) {
+            char[] word = new char[length];
+            for (int p = 0; p < length; p++) {
+                word[p] = (char) ('a' + letters[i * length + p]);
+            }
+            return new String(word);
+        }
+
+        //Whether the letters of word are in the block, by binary search in each level
+        boolean contains(byte[] word) {
+            for (int level = 0; level < LEVELS; level++) {
+                int low = starts[level], high = starts[level + 1] - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int order = compare(letters, mid * length, word, 0, length);
+                    if (order == 0) return true;
+                    if (order < 0) low = mid + 1;
+                    else high = mid - 1;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Block[] blocks = new Block[Message.MAX_WORD_LENGTH + 1]; //by length, null when there is no word
+    private final Map<String, String> clues; //for the words that came with one
+    private final int size;
+    final WordIndex index = new WordIndex(this); //for the computer guesser, built length by length as it is used
+
+    private Dictionary(Block[] blocks, Map<String, String> clues) {
+        int size = 0;
+        for (Block block : blocks) {
+            if (block == null) continue;
+            this.blocks[block.length] = block;
+            size += block.count;
+        }
+        this.clues = clues;
+        this.size = size;
+    }
+
+    //The list, loading it if this is the first call
+    static Dictionary get() {
+        return Holder.WORDS;
+    }
+
+    int size() {
+        return size;
+    }
+
+    //Words of this many letters, null if none
+    Block block(int length) {
+        return length > 0 && length < blocks.length ? blocks[length] : null;
+    }
+
+    //Whether the word is in the list, ignoring case
+    boolean contains(String word) {
+        Block block = block(word.length());
+        if (block == null) return false;
+        byte[] letters = new byte[word.length()];
+        for (int p = 0; p < letters.length; p++) {
+            int c = Character.toLowerCase(word.charAt(p)) - 'a';
+            if (c < 0 || c >= 26) return false;
+            letters[p] = (byte) c;
+        }
+        return block.contains(letters);
+    }
+
+    //A random word with this many letters (0 for any length) and of this level (ANY for all), null if there is none
+    String random(Random random, int length, int level) {
+        int from = level == ANY ? 0 : level, to = level == ANY ? LEVELS : level + 1;
+        long total = 0;
+        for (Block block : blocks) {
+            if (block != null && (length == 0 || block.length == length)) total += block.starts[to] - block.starts[from];
+        }
+        if (total == 0) return null;
+        long pick = (long) (random.nextDouble() * total);
+        for (Block block : blocks) {
+            if (block == null || length != 0 && block.length != length) continue;
+            int n = block.starts[to] - block.starts[from];
+            if (pick < n) return block.word(block.starts[from] + (int) pick);
+            pick -= n;
+        }
+        return null;
+    }
+
+    String clue(String word) {
+        String clue = clues.get(word);
+        return clue != null ? clue : "A word of " + word.length() + " letters";
+    }
+
+    //The level of a word given as letters 0..25
+    static int levelOf(byte[] letters, int from, int length) {
+        int needed = 0;
+        for (int p = from; p < from + length; p++) {
+            needed |= 1 << letters[p];
+        }
+        int misses = 0;
+        for (char letter : BY_FREQUENCY) {
+            if (needed == 0) break;
+            int bit = 1 << (letter - 'a');
+            if ((needed & bit) != 0) needed &= ~bit;
+            else misses++;
+        }
+        return misses <= EASY_MISSES ? EASY : misses <= MEDIUM_MISSES ? MEDIUM : HARD;
+    }
+
+    private static int compare(byte[] a, int from, byte[] b, int at, int length) {
+        for (int p = 0; p < length; p++) {
+            int d = a[from + p] - b[at + p];
+            if (d != 0) return d;
+        }
+        return 0;
+    }
+
+    //Collects words in the order they come, then sorts them into blocks. Duplicates are dropped when sorting.
+    static final class Builder {
+        private final byte[][] letters = new byte[Message.MAX_WORD_LENGTH + 1][];
+        private final int[] counts = new int[Message.MAX_WORD_LENGTH + 1];
+        private final Map<String, String> clues = new HashMap<>();
+
+        //Returns false for a word that is not lower case a-z or too long
+        boolean add(String word, String clue) {
+            if (!isPlain(word)) return false;
+            int length = word.length(), at = counts[length] * length;
+            byte[] block = letters[length];
+            if (block == null) {
+                block = letters[length] = new byte[length * 16];
+            } else if (at + length > block.length) {
+                block = letters[length] = Arrays.copyOf(block, block.length * 2);
+            }
+            for (int p = 0; p < length; p++) {
+                block[at + p] = (byte) (word.charAt(p) - 'a');
+            }
+            counts[length]++;
+            if (clue != null && !clue.isEmpty()) clues.putIfAbsent(word, clue);
+            return true;
+        }
+
+        Dictionary build() {
+            Block[] blocks = new Block[letters.length];
+            for (int length = 1; length < letters.length; length++) {
+                if (counts[length] > 0) blocks[length] = sort(length, letters[length], counts[length]);
+                letters[length] = null; // the sorted copy replaces it
+            }
+            return new Dictionary(blocks, clues);
+        }
+
+        private static Block sort(int length, byte[] raw, int count) {
+            byte[] levels = new byte[count];
+            for (int i = 0; i < count; i++) {
+                levels[i] = (byte) levelOf(raw, i * length, length);
+            }
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) order[i] = i;
+            //bottom-up merge sort of the word numbers, by level and then letters
+            int[] merged = new int[count];
+            for (int width = 1; width < count; width *= 2) {
+                for (int low = 0; low < count; low += 2 * width) {
+                    int mid = Math.min(low + width, count), high = Math.min(low + 2 * width, count);
+                    int a = low, b = mid, out = low;
+                    while (a < mid && b < high) {
+                        int x = order[a], y = order[b];
+                        int d = levels[x] != levels[y] ? levels[x] - levels[y] : compare(raw, x * length, raw, y * length, length);
+                        merged[out++] = d <= 0 ? order[a++] : order[b++];
+                    }
+                    while (a < mid) merged[out++] = order[a++];
+                    while (b < high) merged[out++] = order[b++];
+                }
+                int[] swap = order;
+                order = merged;
+                merged = swap;
+            }
+            byte[] sorted = new byte[count * length];
+            int[] perLevel = new int[LEVELS];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                int word = order[i];
+                if (n > 0 && compare(sorted, (n - 1) * length, raw, word * length, length) == 0) continue; // duplicate
+                System.arraycopy(raw, word * length, sorted, n * length, length);
+                perLevel[levels[word]]++;
+                n++;
+            }
+            Block block = new Block(length, n, n == count ? sorted : Arrays.copyOf(sorted, n * length));
+            for (int level = 0; level < LEVELS; level++) {
+                block.starts[level + 1] = block.starts[level] + perLevel[level];
+            }
+            return block;
+        }
+    }
+
+    private static Dictionary load() {
+        long started = System.nanoTime();
+        Builder words = new Builder();
+        int added = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(open(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                String word = (tab < 0 ? line : line.substring(0, tab)).trim().toLowerCase(Locale.ROOT);
+                if (words.add(word, tab < 0 ? null : line.substring(tab + 1).trim())) added++;
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read the word list: " + e);
+        }
+        if (added == 0) words.add("hangman", null); // a bot must always have something to choose
+        Dictionary dictionary = words.build();
+        System.out.println(String.format("Dictionary: %d words loaded in %.1f ms", dictionary.size(), (System.nanoTime() - started) / 1e6));
+        return dictionary;
+    }
+
+    private static InputStream open() throws IOException {
+        if (FILE != null) return new FileInputStream(FILE);
+        InputStream bundled = Dictionary.class.getResourceAsStream("/words.txt");
+        if (bundled == null) throw new FileNotFoundException("words.txt is missing from the server jar");
+        return bundled;
+    }
+
+    private static boolean isPlain(String word) {
+        if (word.isEmpty() || word.length() > Message.MAX_WORD_LENGTH) return false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') return false;
+        }
+        return true;
+    }
+}
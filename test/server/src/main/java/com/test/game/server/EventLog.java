@@ -0,0 +1,302 @@
+package com.test.game.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Append-only log of what happens in the rooms: round started (secret and clue), guesses, round ended, chat, room closed.
+//Records go into a memory-mapped segment file, so an append is a copy into the page cache and survives the process dying.
+//A background thread forces the segment to disk every few milliseconds (group commit, never one fsync per event)
+//and, once a segment is full, folds it into the snapshot file and deletes it.
+class EventLog {
+    private static final byte ROUND_START = 1, GUESS = 2, ROUND_END = 3, CHAT = 4, ROOM_CLOSED = 5;
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    //Logs nothing: benchmarks and -Dhangman.dataDir= (empty)
+    static final EventLog OFF = new EventLog();
+
+    private final File dir;
+    private final int segmentBytes;
+    private final long syncMillis;
+    final Ratings ratings = new Ratings(); //live records, ratings and leaderboard
+    private int lastRoomId;
+    private int segment; //number of the segment being appended to
+    private MappedByteBuffer buffer;
+    private boolean dirty = false; //appended since the last force
+    private MappedByteBuffer full; //rolled over, not forced yet
+
+    private EventLog() {
+        dir = null;
+        segmentBytes = 0;
+        syncMillis = 0;
+    }
+
+    //Replays what is on disk, writes a fresh snapshot and starts a new segment
+    EventLog(File dir, int segmentBytes, long syncMillis) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.syncMillis = syncMillis;
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        long started = System.nanoTime();
+        GameHistory history = compact(Integer.MAX_VALUE);
+        ratings.load(history.scores);
+        lastRoomId = history.lastRoomId;
+        System.out.println(String.format("Event log: %d players' scores recovered in %.1f ms", history.scores.size(), (System.nanoTime() - started) / 1e6));
+        for (GameHistory.OpenRound round : history.openRounds.values()) {
+            //nobody is connected to them any more, record how far they got and close them
+            System.out.println("Room " + round.room + " was in progress: " + round.chooser + " vs " + round.guesser
+                    + ", word " + round.secret + ", guessed " + (round.guesses.length() == 0 ? "nothing" : round.guesses));
+        }
+        segment = history.nextSegment;
+        buffer = map(segment);
+        for (int room : history.openRounds.keySet()) {
+            roomClosed(room);
+        }
+        Thread sync = new Thread(this::syncLoop, "event-log");
+        sync.setDaemon(true);
+        sync.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::sync));
+    }
+
+    //Highest room id in the log, new rooms are numbered after it so ids stay unique across restarts
+    int lastRoomId() {
+        return lastRoomId;
+    }
+
+    //Counts a round another cluster node logged, only in the live scores: that node's log keeps it
+    void scored(String chooser, String guesser, int outcome) {
+        if (dir == null) return;
+        ratings.scored(chooser, guesser, outcome);
+    }
+
+    //Cluster nodes in one process: every log starts from the scores and room ids all of them recovered.
+    //Each log rated only its own rounds, so a player's rating is the initial one plus what they gained in every log.
+    static void share(List<EventLog> logs) {
+        Map<String, int[]> all = new HashMap<>();
+        int last = 0;
+        for (EventLog log : logs) {
+            for (Map.Entry<String, int[]> score : log.ratings.records().entrySet()) {
+                int[] total = all.computeIfAbsent(score.getKey(), n -> Ratings.newRecord());
+                total[Ratings.WINS] += score.getValue()[Ratings.WINS];
+                total[Ratings.LOSSES] += score.getValue()[Ratings.LOSSES];
+                total[Ratings.RATING] = Leaderboard.clamp(total[Ratings.RATING] + score.getValue()[Ratings.RATING] - Ratings.INITIAL);
+            }
+            last = Math.max(last, log.lastRoomId);
+        }
+        for (EventLog log : logs) {
+            if (log.dir == null) continue;
+            log.ratings.load(all);
+            log.lastRoomId = last;
+        }
+    }
+
+    //Rating for matchmaking, Ratings.INITIAL for a player without a finished round
+    int rating(String name) {
+        return ratings.rating(name);
+    }
+
+    void roundStarted(int room, String chooser, String guesser, String secret, String clue) {
+        if (dir == null) return;
+        byte[][] strings = {bytes(chooser), bytes(guesser), bytes(secret), bytes(clue)};
+        int length = 1 + 4;
+        for (byte[] s : strings) length += 4 + s.length;
+        synchronized (this) {
+            ByteBuffer record = begin(length);
+            record.put(ROUND_START).putInt(room);
+            for (byte[] s : strings) record.putInt(s.length).put(s);
+            commit(record, length);
+        }
+    }
+
+    void guessed(int room, char letter, int result) {
+        if (dir == null) return;
+        synchronized (this) {
+            ByteBuffer record = begin(1 + 4 + 2 + 1);
+            record.put(GUESS).putInt(room).putChar(letter).put((byte) result);
+            commit(record, 1 + 4 + 2 + 1);
+        }
+    }
+
+    //outcome is Message.GUESSER_WON or GUESSER_LOST
+    void roundEnded(int room, String chooser, String guesser, int outcome) {
+        if (dir == null) return;
+        scored(chooser, guesser, outcome);
+        synchronized (this) {
+            ByteBuffer record = begin(1 + 4 + 1);
+            record.put(ROUND_END).putInt(room).put((byte) outcome);
+            commit(record, 1 + 4 + 1);
+        }
+    }
+
+    void chat(int room, String name, String text) {
+        if (dir == null) return;
+        byte[] sender = bytes(name), line = bytes(text);
+        int length = 1 + 4 + 4 + sender.length + 4 + line.length;
+        synchronized (this) {
+            ByteBuffer record = begin(length);
+            record.put(CHAT).putInt(room).putInt(sender.length).put(sender).putInt(line.length).put(line);
+            commit(record, length);
+        }
+    }
+
+    void roomClosed(int room) {
+        if (dir == null) return;
+        synchronized (this) {
+            ByteBuffer record = begin(1 + 4);
+            record.put(ROOM_CLOSED).putInt(room);
+            commit(record, 1 + 4);
+        }
+    }
+
+    //Record layout: int length, then the body. The body is written first and the length last,
+    //so a record cut off by a crash reads as the end of the log.
+    private ByteBuffer begin(int length) {
+        if (buffer.remaining() < 4 + length + 4) roll(); //keep a zero length after the last record
+        buffer.position(buffer.position() + 4);
+        return buffer;
+    }
+
+    private void commit(ByteBuffer record, int length) {
+        record.putInt(record.position() - length - 4, length);
+        dirty = true;
+    }
+
+    //Called with the lock held: leave the full segment to the sync thread and map the next one
+    private void roll() {
+        if (full != null) full.force(); // rolled twice between syncs, rare enough to force here
+        full = buffer;
+        segment++;
+        try {
+            buffer = map(segment);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open event log segment " + segment, e);
+        }
+    }
+
+    private MappedByteBuffer map(int number) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(number), "rw")) {
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    //Group commit: whatever was appended in the last few milliseconds reaches the disk together
+    private void syncLoop() {
+        while (true) {
+            try {
+                Thread.sleep(syncMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            boolean rolled = sync();
+            if (rolled) {
+                try {
+                    compact(segmentNumber() - 1);
+                } catch (IOException e) {
+                    e.printStackTrace(); // the segments stay, the next roll tries again
+                }
+            }
+        }
+    }
+
+    //Returns true if a full segment was forced, which can now be folded into the snapshot
+    private boolean sync() {
+        MappedByteBuffer force, rolledOver;
+        synchronized (this) {
+            force = dirty ? buffer : null;
+            rolledOver = full;
+            dirty = false;
+            full = null;
+        }
+        if (rolledOver != null) rolledOver.force();
+        if (force != null) force.force(); // outside the lock: appends carry on while the disk catches up
+        return rolledOver != null;
+    }
+
+    private synchronized int segmentNumber() {
+        return segment;
+    }
+
+    //Replays every segment up to and including the given number over the snapshot, saves the result and
+    //deletes those segments. Only the constructor and the sync thread call this, never at the same time.
+    private GameHistory compact(int upTo) throws IOException {
+        File snapshot = new File(dir, SNAPSHOT);
+        GameHistory history = GameHistory.load(snapshot);
+        int[] segments = segmentsOnDisk();
+        int last = history.nextSegment - 1;
+        for (int number : segments) {
+            if (number < history.nextSegment || number > upTo) continue;
+            replay(segmentFile(number), history);
+            last = number;
+        }
+        history.nextSegment = last + 1;
+        history.save(snapshot);
+        for (int number : segments) {
+            if (number <= last && !segmentFile(number).delete()) System.out.println("Could not delete " + segmentFile(number));
+        }
+        return history;
+    }
+
+    private static void replay(File file, GameHistory history) throws IOException {
+        ByteBuffer log;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            log = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+        }
+        while (log.remaining() >= 4) {
+            int length = log.getInt();
+            if (length <= 0 || length > log.remaining()) break; // end of the log, or a record cut off by a crash
+            ByteBuffer record = (ByteBuffer) log.slice().limit(length);
+            log.position(log.position() + length);
+            byte type = record.get();
+            int room = record.getInt();
+            switch (type) {
+                case ROUND_START:
+                    history.roundStarted(room, string(record), string(record), string(record), string(record));
+                    break;
+                case GUESS:
+                    history.guessed(room, record.getChar());
+                    break;
+                case ROUND_END:
+                    history.roundEnded(room, record.get());
+                    break;
+                case ROOM_CLOSED:
+                    history.roomClosed(room);
+                    break;
+                default:
+                    break; // chat is only kept in the log
+            }
+        }
+    }
+
+    private int[] segmentsOnDisk() {
+        String[] names = dir.list((d, name) -> name.startsWith("events-") && name.endsWith(".log"));
+        if (names == null) return new int[0];
+        int[] numbers = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            numbers[i] = Integer.parseInt(names[i].substring("events-".length(), names[i].length() - ".log".length()));
+        }
+        Arrays.sort(numbers);
+        return numbers;
+    }
+
+    private File segmentFile(int number) {
+        return new File(dir, String.format("events-%06d.log", number));
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer record) {
+        byte[] s = new byte[record.getInt()];
+        record.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package com.test.game.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+//One selector thread. Waits for any of its connections to become readable/writable and hands complete lines to the game.
+class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Queue<NioClientHandler> newClients = new ConcurrentLinkedQueue<>(); //accepted, not registered yet
+
+    EventLoop() throws IOException {
+        selector = Selector.open();
+    }
+
+    //Called by the accepting thread, the channel is registered on the loop thread itself
+    public void register(NioClientHandler client) {
+        newClients.add(client);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select();
+                NioClientHandler client;
+                while ((client = newClients.poll()) != null) {
+                    try {
+                        client.register(selector);
+                    } catch (IOException e) {
+                        e.printStackTrace(); // closed before it could be registered
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioClientHandler handler = (NioClientHandler) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) handler.onReadable();
+                        if (key.isValid() && key.isWritable()) handler.onWritable();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace(); // a bug handling one client must not stop the loop for all the others
+                        handler.fail();
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
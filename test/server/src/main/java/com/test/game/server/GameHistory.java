@@ -0,0 +1,113 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.io.*;
+import java.util.*;
+
+//What the event log adds up to: every player's wins, losses and rating, and the rounds that had not ended yet.
+//Rebuilt by replaying the log over the last snapshot, never touched by the rooms themselves.
+class GameHistory {
+    //A round that started and had not ended when the log stopped
+    static final class OpenRound {
+        final int room;
+        final String chooser, guesser, secret, clue;
+        final StringBuilder guesses = new StringBuilder();
+
+        OpenRound(int room, String chooser, String guesser, String secret, String clue) {
+            this.room = room;
+            this.chooser = chooser;
+            this.guesser = guesser;
+            this.secret = secret;
+            this.clue = clue;
+        }
+    }
+
+    private static final int MAGIC = 0x48474832; //"HGH2"
+    private static final int MAGIC_V1 = 0x48474831; //"HGH1": records without ratings
+
+    final Map<String, int[]> scores = new HashMap<>(); //name -> {wins, losses, rating}, see Ratings
+    final Map<Integer, OpenRound> openRounds = new TreeMap<>();
+    int lastRoomId = 0;
+    int nextSegment = 1; //segments before this one are already in here
+
+    void roundStarted(int room, String chooser, String guesser, String secret, String clue) {
+        openRounds.put(room, new OpenRound(room, chooser, guesser, secret, clue));
+        lastRoomId = Math.max(lastRoomId, room);
+    }
+
+    void guessed(int room, char letter) {
+        OpenRound round = openRounds.get(room);
+        if (round != null) round.guesses.append(letter);
+    }
+
+    void roundEnded(int room, int outcome) {
+        OpenRound round = openRounds.remove(room);
+        if (round == null) return;
+        Ratings.update(score(round.chooser), score(round.guesser), outcome == Message.GUESSER_WON);
+    }
+
+    void roomClosed(int room) {
+        openRounds.remove(room);
+        lastRoomId = Math.max(lastRoomId, room);
+    }
+
+    private int[] score(String name) {
+        return scores.computeIfAbsent(name, n -> Ratings.newRecord());
+    }
+
+    //Snapshot file: everything above in one go, written next to the target and renamed into place
+    void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(nextSegment);
+            out.writeInt(lastRoomId);
+            out.writeInt(scores.size());
+            for (Map.Entry<String, int[]> score : scores.entrySet()) {
+                out.writeUTF(score.getKey());
+                out.writeInt(score.getValue()[Ratings.WINS]);
+                out.writeInt(score.getValue()[Ratings.LOSSES]);
+                out.writeInt(score.getValue()[Ratings.RATING]);
+            }
+            out.writeInt(openRounds.size());
+            for (OpenRound round : openRounds.values()) {
+                out.writeInt(round.room);
+                out.writeUTF(round.chooser);
+                out.writeUTF(round.guesser);
+                out.writeUTF(round.secret);
+                out.writeUTF(round.clue);
+                out.writeUTF(round.guesses.toString());
+            }
+        }
+        if (!temp.renameTo(file)) {
+            if (!file.delete() || !temp.renameTo(file)) throw new IOException("Could not replace " + file);
+        }
+    }
+
+    //Empty history if there is no snapshot yet
+    static GameHistory load(File file) throws IOException {
+        GameHistory history = new GameHistory();
+        if (!file.exists()) return history;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_V1) throw new IOException(file + " is not a snapshot");
+            history.nextSegment = in.readInt();
+            history.lastRoomId = in.readInt();
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                int wins = in.readInt(), losses = in.readInt();
+                //the rounds behind an old snapshot are gone: start from the rating such a record implies
+                int rating = magic == MAGIC ? in.readInt()
+                        : Leaderboard.clamp((int) Math.round(Ratings.INITIAL + 400 * Math.log10((wins + 1.0) / (losses + 1.0))));
+                history.scores.put(name, new int[]{wins, losses, rating});
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                OpenRound round = new OpenRound(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                round.guesses.append(in.readUTF());
+                history.openRounds.put(round.room, round);
+            }
+        }
+        return history;
+    }
+}
@@ -0,0 +1,508 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import com.test.game.net.TextCodec;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+//One match between two players. Every room owns its own round state and reacts to the lines its players send.
+class GameRoom {
+    //Which input the room is waiting for
+    private enum Stage {
+        SECRET, CLUE, GUESS, PLAY_AGAIN, CLOSED
+    }
+
+    // How long a player whose connection dropped keeps their seat, 0 ends the room at once like before
+    private static final int RECONNECT_SECONDS = Integer.getInteger("hangman.reconnectSeconds", 30);
+    // Only accept secret words that are in the dictionary
+    private static final boolean CHECK_SECRETS = Boolean.getBoolean("hangman.checkSecrets");
+
+    private final int id;
+    private final Lobby lobby;
+    private final EventLog events;
+    private final List<ClientHandler> clients; //the two players of this room
+    private final Channel chat = new Channel(); //the players and the spectators
+    private final Channel watchers = new Channel(); //spectators: the guesser's view of the round, encoded once for all of them
+    private final Random random = new Random();
+    // Not synchronized: players may be virtual threads that block on socket writes while holding this
+    private final ReentrantLock lock = new ReentrantLock();
+    private Stage stage;
+    private ClientHandler Chooser, Guesser;
+    private String secretWord;
+    private String wordClue;
+    private final RoundState round = new RoundState(); //indexed secret word, guesses and chances, reused every round
+    private String[] playchoices; //play again answers, indexed like clients
+    private int version; //bumped on every guess, binary players get a delta per version
+    private final int[] synced = new int[2]; //round version each player was last sent, indexed like clients
+
+    GameRoom(int id, Lobby lobby, ClientHandler first, ClientHandler second) {
+        this.id = id;
+        this.lobby = lobby;
+        this.events = lobby.events;
+        this.clients = Arrays.asList(first, second);
+        first.setRoom(this);
+        second.setRoom(this);
+        chat.subscribe(first);
+        chat.subscribe(second);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (stage == Stage.CLOSED) return; // a player left before the room started
+            System.out.println("Room " + id + " started: " + clients.get(0).getname() + " vs " + clients.get(1).getname());
+            startRound();
+        } finally {
+            flushAll();
+            lock.unlock();
+        }
+    }
+
+    //Called with every complete line a player of this room sends
+    public void onInput(ClientHandler client, String msg) {
+        lock.lock();
+        try {
+            handleInput(client, msg);
+        } finally {
+            flushAll();
+            lock.unlock();
+        }
+    }
+
+    //A spectator joins: the round as it stands now, then every change together with the other spectators.
+    //Under the room lock, so nothing that happens in between is missed or sent twice.
+    public boolean watch(ClientHandler spectator) {
+        lock.lock();
+        try {
+            if (stage == Stage.CLOSED) return false;
+            spectator.setRoom(this);
+            spectator.send(Message.watching(id, clients.get(0).getname(), clients.get(1).getname()));
+            if (stage == Stage.GUESS) {
+                spectator.send(spectatorSnapshot());
+            } else if (stage == Stage.SECRET || stage == Stage.CLUE) {
+                spectator.send(choosing());
+            }
+            watchers.subscribe(spectator);
+            chat.subscribe(spectator);
+            return true;
+        } finally {
+            spectator.flush();
+            lock.unlock();
+        }
+    }
+
+    public void unwatch(ClientHandler spectator) {
+        watchers.unsubscribe(spectator);
+        chat.unsubscribe(spectator);
+    }
+
+    public int spectators() {
+        return watchers.size();
+    }
+
+    //A spectator that lost track of the round gets it again
+    public void resyncSpectator(ClientHandler spectator) {
+        lock.lock();
+        try {
+            if (stage == Stage.GUESS) spectator.send(spectatorSnapshot());
+        } finally {
+            spectator.flush();
+            lock.unlock();
+        }
+    }
+
+    //Chat skips the room lock: it goes straight to the channel, so a flood of it never holds up a guess
+    public void chat(ClientHandler client, String text) {
+        if (!client.mayChat()) return;
+        Metrics.chats.increment();
+        events.chat(id, client.getname(), text);
+        chat.publish(Message.chat(client.getname(), text));
+    }
+
+    private void handleInput(ClientHandler client, String msg) {
+        if (stage == null || stage == Stage.CLOSED) return; // not started yet or already over
+        if (msg.equals(TextCodec.RESYNC)) {
+            resync(client);
+            return;
+        }
+        switch (stage) {
+            case SECRET:
+                if (client != Chooser) break;
+                if (msg.startsWith(TextCodec.RANDOM)) {
+                    chooseRandom(msg.substring(TextCodec.RANDOM.length()));
+                    return;
+                }
+                String problem = checkSecret(msg);
+                if (problem != null) {
+                    Chooser.send(Message.notice(Message.NOTICE_TEXT, problem));
+                    Chooser.send(Message.prompt(Message.PROMPT_SECRET));
+                    return;
+                }
+                secretWord = msg;
+                Chooser.send(Message.prompt(Message.PROMPT_CLUE));
+                stage = Stage.CLUE;
+                return;
+            case CLUE:
+                if (client != Chooser) break;
+                wordClue = msg;
+                beginGuessing();
+                return;
+            case GUESS:
+                if (client != Guesser) break;
+                handleGuess(msg);
+                return;
+            case PLAY_AGAIN:
+                int index = clients.indexOf(client);
+                if (playchoices[index] != null) break; // already answered
+                playchoices[index] = msg;
+                if (playchoices[0] != null && playchoices[1] != null) {
+                    handlePlayChoices();
+                }
+                return;
+            default:
+                break;
+        }
+        // If the message comes from the player we are not waiting for, treat it as chat.
+        chat(client, msg);
+    }
+
+    //Called when a player's connection drops, the other player cannot continue alone
+    public void playerLeft(ClientHandler client) {
+        lock.lock();
+        try {
+            leave(client);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Called when a player who can resume loses the connection: their seat is kept for a while
+    public void playerAway(ClientHandler client) {
+        if (RECONNECT_SECONDS <= 0) {
+            playerLeft(client);
+            return;
+        }
+        lock.lock();
+        try {
+            if (stage == Stage.CLOSED || !clients.contains(client)) return;
+            for (ClientHandler other : clients) {
+                if (other != client) {
+                    other.send(Message.notice(Message.NOTICE_TEXT, client.getname() + " lost the connection, waiting up to "
+                            + RECONNECT_SECONDS + " seconds for them to come back..."));
+                }
+            }
+        } finally {
+            flushAll();
+            lock.unlock();
+        }
+        lobby.timers.schedule(() -> playerLeft(client), RECONNECT_SECONDS, TimeUnit.SECONDS); // no-op once resumed
+    }
+
+    //A new connection takes over the seat of a player who dropped. Returns false if the room is over.
+    public boolean resume(ClientHandler old, ClientHandler fresh) {
+        lock.lock();
+        try {
+            int index = clients.indexOf(old);
+            if (stage == Stage.CLOSED || index < 0) return false;
+            clients.set(index, fresh);
+            chat.unsubscribe(old);
+            chat.subscribe(fresh);
+            if (Chooser == old) Chooser = fresh;
+            if (Guesser == old) Guesser = fresh;
+            fresh.setRoom(this);
+            lobby.moveSession(fresh.getSession(), fresh);
+            old.closeConnection(); // in case the old connection has not noticed yet, it is ignored from now on
+            fresh.send(Message.welcome(fresh.getname()));
+            fresh.send(Message.session(fresh.getSession()));
+            for (ClientHandler other : clients) {
+                if (other != fresh) other.send(Message.notice(Message.NOTICE_TEXT, fresh.getname() + " is back."));
+            }
+            catchUp(fresh, index);
+            return true;
+        } finally {
+            flushAll();
+            lock.unlock();
+        }
+    }
+
+    //Everything a resumed player needs: the round in one snapshot and the prompt they owe us, if any
+    private void catchUp(ClientHandler client, int index) {
+        switch (stage) {
+            case SECRET:
+                if (client == Chooser) client.send(Message.prompt(Message.PROMPT_SECRET));
+                break;
+            case CLUE:
+                if (client == Chooser) client.send(Message.prompt(Message.PROMPT_CLUE));
+                break;
+            case GUESS:
+                resync(client);
+                if (client == Guesser) client.send(Message.prompt(Message.PROMPT_LETTER));
+                break;
+            case PLAY_AGAIN:
+                if (playchoices[index] == null) client.send(Message.prompt(Message.PROMPT_PLAY_AGAIN));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void leave(ClientHandler client) {
+        if (stage == Stage.CLOSED || !clients.contains(client)) return; // closed, or a connection replaced by a resume
+        for (ClientHandler other : clients) {
+            if (other != client) {
+                other.send(Message.disconnect(Message.LEFT, client.getname()));
+            }
+        }
+        close(); // flushes what is left
+    }
+
+    //Everything one input produced goes out together, one write per player; spectators after the players
+    private void flushAll() {
+        for (ClientHandler client : clients) {
+            if (!client.flush()) {
+                Metrics.dropped.increment();
+                leave(client); // too slow to keep up, it was dropped
+            }
+        }
+        watchers.flush();
+    }
+
+    private void startRound() {
+        //choosing chooser by random
+        int ChooserIndex = random.nextInt(2);
+        Guesser = clients.get((ChooserIndex + 1) % 2);
+        Chooser = clients.get(ChooserIndex);
+
+        //get secret word and clue from chooser
+        Chooser.send(Message.prompt(Message.PROMPT_SECRET));
+        stage = Stage.SECRET;
+        watchers.queue(choosing());
+    }
+
+    //Why a chooser's secret word cannot be used, null if it can
+    private static String checkSecret(String word) {
+        if (word.isEmpty()) return "The secret word cannot be empty.";
+        if (word.length() > Message.MAX_WORD_LENGTH) return "The secret word can have at most " + Message.MAX_WORD_LENGTH + " letters.";
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) return "The secret word can only have letters.";
+        }
+        if (CHECK_SECRETS && !Dictionary.get().contains(word)) return "\"" + word + "\" is not in the dictionary.";
+        return null;
+    }
+
+    //A word and its clue from the dictionary, for @random with an optional ":level", ":length" or both
+    private void chooseRandom(String options) {
+        int level = Dictionary.ANY, length = 0;
+        for (String option : options.split(":")) {
+            option = option.trim().toLowerCase(Locale.ROOT);
+            if (option.isEmpty()) continue;
+            int named = Arrays.asList(Dictionary.LEVEL_NAMES).indexOf(option);
+            if (named >= 0) {
+                level = named;
+            } else if (option.matches("\\d{1,2}")) {
+                length = Integer.parseInt(option);
+            }
+        }
+        Dictionary dictionary = Dictionary.get();
+        String word = dictionary.random(random, length, level);
+        if (word == null) {
+            Chooser.send(Message.notice(Message.NOTICE_TEXT, "The dictionary has no such word, choose another."));
+            Chooser.send(Message.prompt(Message.PROMPT_SECRET));
+            return;
+        }
+        secretWord = word;
+        wordClue = dictionary.clue(word);
+        beginGuessing();
+    }
+
+    private void beginGuessing() {
+        //guessed word - blanks initially
+        round.start(secretWord);
+        events.roundStarted(id, Chooser.getname(), Guesser.getname(), secretWord, wordClue);
+
+        broadcast(Message.roundStart(Chooser.getname(), Guesser.getname()));
+        Guesser.send(Message.yourTurn());
+        stage = Stage.GUESS;
+        version = 0;
+        for (ClientHandler client : clients) {
+            if (client.isBinary()) sendSnapshot(client);
+        }
+        watchers.queue(Message.roundStart(Chooser.getname(), Guesser.getname()));
+        watchers.queue(spectatorSnapshot());
+        nextTurn();
+    }
+
+    //Records the result and tells both players where it leaves them
+    private void scored(int outcome) {
+        Ratings ratings = lobby.events.ratings;
+        Ratings.Standing chooserBefore = ratings.standing(Chooser.getname()), guesserBefore = ratings.standing(Guesser.getname());
+        lobby.roundEnded(id, Chooser.getname(), Guesser.getname(), outcome);
+        Chooser.standingChanged(chooserBefore, ratings.standing(Chooser.getname()));
+        Guesser.standingChanged(guesserBefore, ratings.standing(Guesser.getname()));
+    }
+
+    //Prompt the guesser again, or end the round once the word is found or the chances are over
+    private void nextTurn() {
+        if (!round.isOver()) {
+            for (ClientHandler client : clients) {
+                if (!client.isBinary()) sendState(client); // binary players already have it from the snapshot and deltas
+            }
+            Guesser.send(Message.prompt(Message.PROMPT_LETTER));
+            return;
+        }
+        //Chances over, Round ends
+        if (round.remainingChances() == 0) {
+            scored(Message.GUESSER_LOST);
+            Guesser.send(Message.roundEnd(Message.GUESSER_LOST, secretWord, Chooser.getname()));
+            Chooser.send(Message.roundEnd(Message.CHOOSER_WON, secretWord, Guesser.getname()));
+            watchers.queue(Message.roundEnd(Message.WATCHED_LOST, secretWord, Guesser.getname()));
+        }
+        askPlayAgain();
+    }
+
+    private void handleGuess(String input) {
+        if (input.length() != 1) {
+            Guesser.send(Message.notice(Message.NOTICE_INVALID_GUESS, null));
+            nextTurn();
+            return;
+        }
+        char guessedLetter = input.charAt(0);
+        Metrics.guesses.increment();
+        int result = round.guess(guessedLetter);
+        events.guessed(id, guessedLetter, result);
+        long revealed = result == Message.RESULT_CORRECT ? round.positionsOf(guessedLetter) : 0;
+        int remainingChances = round.remainingChances();
+        version++;
+        Message delta = Message.delta(result, guessedLetter, remainingChances, revealed, round.lettersAt(revealed));
+        watchers.queue(delta);
+        for (ClientHandler client : clients) {
+            if (client.isBinary()) {
+                sendDelta(client, delta);
+            } else {
+                client.send(Message.guess(guessedLetter, client == Guesser));
+                client.send(Message.guessResult(result, guessedLetter, remainingChances,
+                        result == Message.RESULT_CORRECT ? round.shownWord() : null));
+            }
+        }
+        if (result == Message.RESULT_ALREADY) {
+            nextTurn();
+            return;
+        }
+        //Word has been guessed, Round ends
+        if (round.isSolved()) {
+            scored(Message.GUESSER_WON);
+            for (ClientHandler client : clients) {
+                if (!client.isBinary()) client.send(client == Chooser ? Message.word(secretWord, true) : Message.word(round.shownWord(), false));
+            }
+            Guesser.send(Message.roundEnd(Message.GUESSER_WON, secretWord, Chooser.getname()));
+            Chooser.send(Message.roundEnd(Message.CHOOSER_LOST, secretWord, Guesser.getname()));
+            watchers.queue(Message.roundEnd(Message.WATCHED_WON, secretWord, Guesser.getname()));
+            askPlayAgain();
+            return;
+        }
+        nextTurn();
+    }
+
+    private void askPlayAgain() {
+        broadcast(Message.prompt(Message.PROMPT_PLAY_AGAIN));
+        playchoices = new String[clients.size()];
+        stage = Stage.PLAY_AGAIN;
+    }
+
+    //Play again with customized messages to each player.
+    private void handlePlayChoices() {
+        String playchoice1 = playchoices[0];
+        String playchoice2 = playchoices[1];
+        if (playchoice1.equalsIgnoreCase("yes") && playchoice2.equalsIgnoreCase("yes")) {
+            broadcast(Message.newGame());
+            watchers.queue(Message.newGame());
+            startRound();
+            return;
+        } else if (playchoice1.equalsIgnoreCase("yes") && !playchoice2.equalsIgnoreCase("yes")) {
+            clients.get(0).send(Message.disconnect(Message.DECLINED, clients.get(1).getname()));
+            clients.get(1).send(Message.disconnect(Message.BYE, null));
+        } else if (playchoice2.equalsIgnoreCase("yes") && !playchoice1.equalsIgnoreCase("yes")) {
+            clients.get(1).send(Message.disconnect(Message.DECLINED, clients.get(0).getname()));
+            clients.get(0).send(Message.disconnect(Message.BYE, null));
+        } else {
+            broadcast(Message.disconnect(Message.BYE, null));
+        }
+        close();
+    }
+
+    //Close both connections and give the room slot back to the lobby
+    private void close() {
+        stage = Stage.CLOSED;
+        chat.clear();
+        watchers.queue(Message.disconnect(Message.BYE, null));
+        watchers.closeAll(); // closing flushes
+        events.roomClosed(id);
+        for (ClientHandler client : clients) {
+            lobby.closeSession(client.getSession(), client);
+            client.closeConnection();
+        }
+        lobby.roomClosed(this);
+        System.out.println("Room " + id + " closed");
+    }
+
+    //What spectators see of a round: the guesser's view
+    private Message spectatorSnapshot() {
+        return Message.snapshot(Message.ROLE_SPECTATOR, round.shownWord(), wordClue, round.remainingChances(), Guesser.getname());
+    }
+
+    private Message choosing() {
+        return Message.notice(Message.NOTICE_TEXT, Chooser.getname() + " is choosing a word...");
+    }
+
+    //Full round state as text lines: what text players are sent every turn
+    private void sendState(ClientHandler client) {
+        client.send(Message.clue(wordClue));
+        if (client == Chooser) {
+            client.send(Message.word(secretWord, true)); // chooser sees actual word
+            client.send(Message.turn(Guesser.getname()));
+        } else {
+            client.send(Message.word(round.shownWord(), false));
+        }
+    }
+
+    //Full round state in one message, for binary players joining the round or asking for a resync
+    private void sendSnapshot(ClientHandler client) {
+        boolean chooser = client == Chooser;
+        client.send(Message.snapshot(chooser ? Message.ROLE_CHOOSER : Message.ROLE_GUESSER,
+                chooser ? secretWord : round.shownWord(), wordClue, round.remainingChances(), Guesser.getname()));
+        synced[clients.indexOf(client)] = version;
+    }
+
+    //A player that saw the previous version only needs what changed, anyone further behind gets everything again
+    private void sendDelta(ClientHandler client, Message delta) {
+        int index = clients.indexOf(client);
+        if (synced[index] == version - 1) {
+            client.send(delta);
+            synced[index] = version;
+        } else {
+            sendSnapshot(client);
+        }
+    }
+
+    private void resync(ClientHandler client) {
+        if (stage != Stage.GUESS) return; // no round on the board
+        if (client.isBinary()) {
+            sendSnapshot(client);
+        } else {
+            sendState(client);
+        }
+    }
+
+    //broadcast - send message to both players of this room
+    private void broadcast(Message message) {
+        for (ClientHandler client : clients) {
+            client.send(message);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.test.game.server;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+//Consistent hashing: every node owns many points on a ring of 64-bit hashes and a key belongs to the first point
+//at or after its own hash. Adding a node only moves the keys that now land on one of its points, about 1/n of them,
+//and the many points per node keep the share of each node close to even.
+final class HashRing {
+    private final long[] points; //sorted
+    private final int[] owners; //node of each point
+
+    HashRing(int nodes, int pointsPerNode) {
+        int count = nodes * pointsPerNode;
+        long[] hashes = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = mix(((long) (i / pointsPerNode) << 32) | (i % pointsPerNode));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> hashes[i]));
+        points = new long[count];
+        owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / pointsPerNode;
+        }
+    }
+
+    //Node owning the key
+    int nodeFor(long key) {
+        return nodeFor(key, node -> true);
+    }
+
+    //First node clockwise from the key that accepts it, -1 if none does. A full node passes its keys on
+    //to the next ones round the ring, so an overloaded node spills over evenly instead of onto one neighbour.
+    int nodeFor(long key, IntPredicate accepts) {
+        int start = Arrays.binarySearch(points, mix(key));
+        if (start < 0) start = -start - 1;
+        for (int i = 0; i < points.length; i++) {
+            int node = owners[(start + i) % points.length];
+            if (accepts.test(node)) return node;
+        }
+        return -1;
+    }
+
+    //SplitMix64 finalizer: neighbouring keys such as consecutive room ids end up far apart on the ring
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
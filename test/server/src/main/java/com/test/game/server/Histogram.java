@@ -0,0 +1,61 @@
+package com.test.game.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Lock-free histogram of non-negative values with log-linear buckets: exact below 16, above that
+//8 buckets per power of two, so any value is reported within 12.5%. Recording is one atomic increment.
+final class Histogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = 16 + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long value) {
+        counts.incrementAndGet(bucket(Math.max(0, value)));
+    }
+
+    //Counts recorded so far, one per bucket. Subtract an earlier copy to get an interval.
+    long[] snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    //Smallest bucket bound at or above the given fraction (0 to 1) of the counts, 0 if there are none
+    static long percentile(long[] counts, double fraction) {
+        long total = 0;
+        for (long c : counts) total += c;
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return highestIn(i);
+        }
+        return highestIn(counts.length - 1);
+    }
+
+    static long total(long[] counts) {
+        long total = 0;
+        for (long c : counts) total += c;
+        return total;
+    }
+
+    private static int bucket(long value) {
+        if (value < 16) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); //4 or more
+        int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return 16 + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    //Largest value that falls into the bucket
+    private static long highestIn(int bucket) {
+        if (bucket < 16) return bucket;
+        int exponent = (bucket - 16) / SUB_BUCKETS + 4;
+        long sub = (bucket - 16) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << (exponent - 3);
+        return lowest + (1L << (exponent - 3)) - 1;
+    }
+}
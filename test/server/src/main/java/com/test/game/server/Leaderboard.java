@@ -0,0 +1,76 @@
+package com.test.game.server;
+
+import java.util.*;
+
+//Order statistics over ratings: a Fenwick tree counting the players at each rating point, best first, and the names
+//at each point. How many players are rated above someone is a prefix sum, and the k-th best player is found by walking
+//down the tree, both O(log R) for R = 4096 possible ratings however many players there are.
+//Not thread safe, Ratings guards it.
+final class Leaderboard {
+    static final int MAX_RATING = 4095;
+    private static final int POINTS = MAX_RATING + 1;
+
+    private final int[] tree = new int[POINTS + 1]; //1-based, position i counts rating MAX_RATING + 1 - i
+    private final List<NavigableSet<String>> names = new ArrayList<>(Collections.nCopies(POINTS, null)); //by rating
+    private int size;
+
+    static int clamp(int rating) {
+        return Math.max(0, Math.min(MAX_RATING, rating));
+    }
+
+    void add(String name, int rating) {
+        NavigableSet<String> at = names.get(rating);
+        if (at == null) names.set(rating, at = new TreeSet<>());
+        if (!at.add(name)) return;
+        size++;
+        for (int i = POINTS - rating; i <= POINTS; i += i & -i) tree[i]++;
+    }
+
+    void remove(String name, int rating) {
+        NavigableSet<String> at = names.get(rating);
+        if (at == null || !at.remove(name)) return;
+        size--;
+        for (int i = POINTS - rating; i <= POINTS; i += i & -i) tree[i]--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    //1 for the best rating; players with the same rating share a rank
+    int rank(int rating) {
+        return above(rating) + 1;
+    }
+
+    //Players rated higher
+    private int above(int rating) {
+        int count = 0;
+        for (int i = POINTS - rating - 1; i > 0; i -= i & -i) count += tree[i];
+        return count;
+    }
+
+    //Rating of the k-th best player, 1-based, k at most size()
+    private int kth(int k) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(POINTS); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= POINTS && tree[next] < k) {
+                position = next;
+                k -= tree[next];
+            }
+        }
+        return POINTS - (position + 1);
+    }
+
+    //Names of the best n players, best first, ties in alphabetical order. Each rating on the way costs one O(log R) walk.
+    List<String> top(int n) {
+        List<String> best = new ArrayList<>(Math.min(n, size));
+        while (best.size() < n && best.size() < size) {
+            for (String name : names.get(kth(best.size() + 1))) {
+                best.add(name);
+                if (best.size() == n) break;
+            }
+        }
+        return best;
+    }
+}
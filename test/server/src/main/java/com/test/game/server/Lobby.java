@@ -0,0 +1,398 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Matchmaking: pairs named players of similar rating (see Matchmaker) and hands each pair to a new GameRoom.
+//In a cluster the front's lobby sends binary pairs to a node instead, and a node's lobby seats the players it was sent.
+class Lobby {
+    //How long a node keeps a seat for a redirected player, and a ticket that arrived before the front's message
+    private static final int TICKET_SECONDS = Integer.getInteger("hangman.ticketSeconds", 10);
+
+    private final Map<Integer, GameRoom> rooms = new ConcurrentHashMap<>(); //active rooms by id
+    private final Channel chat = new Channel(); //everyone waiting for an opponent
+    private final Map<String, ClientHandler> sessions = new ConcurrentHashMap<>(); //resume token -> player holding the seat
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicInteger nextRoomId;
+    private final int idStride; //lobbies of a cluster take turns with ids, each one every (nodes + 1)th
+    private final int maxRooms;
+    final EventLog events; //where rooms record their rounds
+    final TimerWheel timers = new TimerWheel("timers"); //heartbeats, deadlines and kept seats of every connection
+    private final Matchmaker waiting = new Matchmaker(this::open, timers); //players waiting for an opponent
+    private final Cluster cluster; //null for a single server
+    private final int node; //our number in the cluster, Cluster.FRONT for the front
+    private final Map<Integer, Integer> placed = new ConcurrentHashMap<>(); //front: room id -> node holding it
+    private final Map<String, Ticket> tickets = new HashMap<>(); //node: seats the front announced or players claimed, lobby lock
+    private int expectedRooms = 0; //node: rooms announced but not started yet, lobby lock
+
+    //A seat on a node, known from the front's message, from the player who claimed it, or both
+    private static final class Ticket {
+        final String token;
+        boolean announced = false; //the front's message arrived
+        int room;
+        String name; //player's name, null for a spectator
+        Ticket partner; //the other seat of the room, null for a spectator
+        boolean leads; //first of the pair
+        ClientHandler holder; //connection that claimed it
+        TimerWheel.Timeout expiry;
+
+        Ticket(String token) {
+            this.token = token;
+        }
+    }
+
+    Lobby(int maxRooms) {
+        this(maxRooms, EventLog.OFF);
+    }
+
+    Lobby(int maxRooms, EventLog events) {
+        this(maxRooms, events, null, Cluster.FRONT);
+    }
+
+    Lobby(int maxRooms, EventLog events, Cluster cluster, int node) {
+        this.maxRooms = maxRooms;
+        this.events = events;
+        this.idStride = cluster == null ? 1 : cluster.size() + 1;
+        //ids stay unique in the log across restarts, and between the lobbies of a cluster
+        this.nextRoomId = new AtomicInteger(events.lastRoomId() + 1 + (cluster == null ? 0 : node + 1));
+        this.cluster = cluster;
+        this.node = node;
+        if (cluster == null) return;
+        cluster.subscribe(Cluster.RESULT, in -> {
+            int from = in.readInt();
+            String chooser = in.readUTF(), guesser = in.readUTF();
+            int outcome = in.readByte();
+            if (from != node) events.scored(chooser, guesser, outcome);
+        });
+        if (node == Cluster.FRONT) {
+            cluster.subscribe(Cluster.LOAD, in -> loadReported(in.readInt(), in.readInt(), in.readInt()));
+        } else {
+            cluster.subscribe(Cluster.seats(node), in -> {
+                if (in.readByte() == Cluster.SEAT_PLAYERS) {
+                    int room = in.readInt();
+                    expect(room, in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                } else {
+                    expectSpectator(in.readInt(), in.readUTF());
+                }
+            });
+        }
+    }
+
+    //Called once a player has entered their name
+    public void join(ClientHandler player) {
+        chat.subscribe(player);
+        waiting.join(player, events.rating(player.getname()));
+    }
+
+    //A waiting player would rather play the computer than wait for a person
+    public void playBot(ClientHandler player) {
+        BotPlayer bot = new BotPlayer(this); // outside the locks: the first one may still wait for the word list
+        if (!waiting.take(player)) return; // paired meanwhile
+        Runnable start = open(player, bot, false);
+        if (start == null) {
+            player.send(Message.notice(Message.NOTICE_TEXT, "All rooms are busy, please wait for a person."));
+            waiting.join(player, events.rating(player.getname()));
+            return;
+        }
+        start.run();
+    }
+
+    //Called when a waiting player disconnects before being paired
+    public void leave(ClientHandler player) {
+        chat.unsubscribe(player);
+        waiting.leave(player);
+    }
+
+    //Chat between waiting players, logged as room 0
+    public void chat(ClientHandler player, String text) {
+        if (!player.mayChat()) return;
+        Metrics.chats.increment();
+        events.chat(0, player.getname(), text);
+        chat.publish(Message.chat(player.getname(), text));
+    }
+
+    //Called by a room once both of its connections are closed
+    public void roomClosed(GameRoom room) {
+        rooms.remove(room.getId());
+        waiting.retry(); //a slot has been freed, pairs held back by the room limit can start now
+        reportLoad(room.getId());
+    }
+
+    //Called by a room when a round is over: logged here, and every other node hears about it for its scores
+    public void roundEnded(int room, String chooser, String guesser, int outcome) {
+        events.roundEnded(room, chooser, guesser, outcome);
+        if (cluster == null) return;
+        cluster.publish(Cluster.RESULT, out -> {
+            out.writeInt(node);
+            out.writeUTF(chooser);
+            out.writeUTF(guesser);
+            out.writeByte(outcome);
+        });
+    }
+
+    //New resume token for a player, unguessable so nobody can take someone else's seat
+    public String openSession(ClientHandler player) {
+        String token = newToken();
+        sessions.put(token, player);
+        return token;
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(32);
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return token.toString();
+    }
+
+    //Player currently holding the seat of a token, null if the token is unknown or its game is over
+    public ClientHandler session(String token) {
+        return sessions.get(token);
+    }
+
+    //Hand a seat to the connection that resumed it
+    public void moveSession(String token, ClientHandler player) {
+        if (token != null) sessions.put(token, player);
+    }
+
+    //Forget a token once its game is over, unless another connection holds it by now
+    public void closeSession(String token, ClientHandler player) {
+        if (token == null) return;
+        sessions.remove(token, player);
+        if (cluster != null && node != Cluster.FRONT) {
+            synchronized (this) {
+                Ticket ticket = tickets.get(token);
+                if (ticket != null && ticket.holder == player) ticket.holder = null; // left before the room started
+            }
+        }
+    }
+
+    //Adds a spectator to a room, 0 for the featured match. False if there is no such room.
+    //The front sends a spectator on to the node holding the room when it has none of its own.
+    public boolean watch(ClientHandler spectator, int roomId) {
+        GameRoom room = roomId > 0 ? rooms.get(roomId) : featured();
+        if (room != null && room.watch(spectator)) return true;
+        if (cluster == null || node != Cluster.FRONT) return false;
+        Integer holder = roomId > 0 ? placed.get(roomId) : null;
+        int to = holder != null ? holder : roomId > 0 ? -1 : cluster.busiest();
+        if (to < 0) return false;
+        String ticket = newToken();
+        cluster.publish(Cluster.seats(to), out -> {
+            out.writeByte(Cluster.SEAT_SPECTATOR);
+            out.writeInt(roomId);
+            out.writeUTF(ticket);
+        });
+        spectator.redirect(cluster.host(to), cluster.port(to), ticket);
+        return true;
+    }
+
+    //Node: a redirected player or spectator sent its ticket. False if it is not one of ours.
+    //A ticket that arrives before the front's message about it is kept until that message comes.
+    public boolean claim(String token, ClientHandler player) {
+        if (cluster == null || node == Cluster.FRONT) return false;
+        Runnable next;
+        synchronized (this) {
+            Ticket ticket = tickets.get(token);
+            if (ticket == null) {
+                ticket = new Ticket(token);
+                tickets.put(token, ticket);
+                expireLater(ticket);
+            }
+            if (ticket.holder != null) return false; // somebody else already claimed it
+            ticket.holder = player;
+            next = seat(ticket);
+        }
+        if (next != null) next.run();
+        return true;
+    }
+
+    //Node: the front placed a room here, its two players are on their way
+    private void expect(int room, String firstName, String firstToken, String secondName, String secondToken) {
+        Runnable next;
+        synchronized (this) {
+            expectedRooms++;
+            Ticket first = announce(firstToken, room, firstName), second = announce(secondToken, room, secondName);
+            first.partner = second;
+            second.partner = first;
+            first.leads = true;
+            next = seat(first);
+        }
+        if (next != null) next.run();
+        reportLoad(0);
+    }
+
+    //Node: a spectator is on their way to one of our rooms, 0 for our featured match
+    private void expectSpectator(int room, String token) {
+        Runnable next;
+        synchronized (this) {
+            next = seat(announce(token, room, null));
+        }
+        if (next != null) next.run();
+    }
+
+    private Ticket announce(String token, int room, String name) {
+        Ticket ticket = tickets.get(token);
+        if (ticket == null) {
+            ticket = new Ticket(token);
+            tickets.put(token, ticket);
+            expireLater(ticket);
+        }
+        ticket.announced = true;
+        ticket.room = room;
+        ticket.name = name;
+        return ticket;
+    }
+
+    //Under the lobby lock: once everyone a ticket waits for is here, returns what starts the room or the watching
+    private Runnable seat(Ticket ticket) {
+        if (!ticket.announced || ticket.holder == null) return null;
+        if (ticket.name == null) {
+            drop(ticket);
+            ClientHandler spectator = ticket.holder;
+            int room = ticket.room;
+            return () -> spectator.spectate(room);
+        }
+        Ticket other = ticket.partner;
+        if (other.holder == null) return null;
+        drop(ticket);
+        drop(other);
+        expectedRooms--;
+        Ticket first = ticket.leads ? ticket : other, second = first.partner; //in the order the front paired them
+        first.holder.seated(first.name, first.token);
+        second.holder.seated(second.name, second.token);
+        sessions.put(first.token, first.holder);
+        sessions.put(second.token, second.holder);
+        GameRoom room = new GameRoom(first.room, this, first.holder, second.holder);
+        rooms.put(room.getId(), room);
+        return room::start;
+    }
+
+    private void drop(Ticket ticket) {
+        tickets.remove(ticket.token);
+        if (ticket.expiry != null) ticket.expiry.cancel();
+    }
+
+    private void expireLater(Ticket ticket) {
+        ticket.expiry = timers.schedule(() -> expired(ticket), TICKET_SECONDS, TimeUnit.SECONDS);
+    }
+
+    //Timer wheel: a ticket nobody claimed, or that the front never announced, in time
+    private void expired(Ticket ticket) {
+        ClientHandler holder;
+        String partner = null;
+        boolean unknown;
+        synchronized (this) {
+            if (tickets.get(ticket.token) != ticket) return; // seated meanwhile
+            tickets.remove(ticket.token);
+            holder = ticket.holder;
+            unknown = !ticket.announced;
+            if (ticket.partner != null) {
+                partner = ticket.partner.name;
+                if (tickets.remove(ticket.partner.token) != null) { // the room was never started
+                    expectedRooms--;
+                    ticket.partner.expiry.cancel();
+                    if (ticket.partner.holder != null) ticket.partner.holder.opponentMissing(ticket.name);
+                }
+            }
+        }
+        if (holder == null) {
+            reportLoad(0);
+        } else if (unknown) {
+            holder.resumeFailed(); // not a ticket of ours after all, most likely a game that is over
+        } else if (partner != null) {
+            holder.opponentMissing(partner);
+            reportLoad(0);
+        }
+    }
+
+    //Node: tell the front how many rooms we hold, and which one just closed (0 for none)
+    private void reportLoad(int closedRoom) {
+        if (cluster == null || node == Cluster.FRONT) return;
+        int count;
+        synchronized (this) {
+            count = rooms.size() + expectedRooms;
+        }
+        cluster.publish(Cluster.LOAD, out -> {
+            out.writeInt(node);
+            out.writeInt(count);
+            out.writeInt(closedRoom);
+        });
+    }
+
+    //Front: a node's load changed, pairs held back because every node was full may fit now
+    private void loadReported(int from, int count, int closedRoom) {
+        cluster.reported(from, count);
+        if (closedRoom > 0) placed.remove(closedRoom);
+        waiting.retry();
+    }
+
+    //The match most people are watching, the oldest one if nobody watches yet
+    private GameRoom featured() {
+        GameRoom best = null;
+        for (GameRoom room : rooms.values()) {
+            if (best == null || room.spectators() > best.spectators()
+                    || room.spectators() == best.spectators() && room.getId() < best.getId()) {
+                best = room;
+            }
+        }
+        return best;
+    }
+
+    //Rooms of this server, at the front those of the whole cluster
+    public int activeRooms() {
+        return rooms.size() + (cluster != null && node == Cluster.FRONT ? cluster.activeRooms() : 0);
+    }
+
+    public int waitingPlayers() {
+        return waiting.waiting();
+    }
+
+    //A room for a pair, null when we are at the room limit. Called by the matchmaker with its lock held.
+    //At a front, binary pairs go to a node with room to spare; text clients can't follow a redirect and always play here.
+    private Runnable open(ClientHandler first, ClientHandler second) {
+        return open(first, second, true);
+    }
+
+    private synchronized Runnable open(ClientHandler first, ClientHandler second, boolean anywhere) {
+        int to = -1;
+        if (anywhere && cluster != null && node == Cluster.FRONT && first.isBinary() && second.isBinary()) {
+            to = cluster.place(nextRoomId.get());
+        }
+        if (to < 0 && rooms.size() >= maxRooms) return null;
+        chat.unsubscribe(first);
+        chat.unsubscribe(second);
+        if (to >= 0) return moveRoom(nextRoomId.getAndAdd(idStride), to, first, second);
+        GameRoom room = new GameRoom(nextRoomId.getAndAdd(idStride), this, first, second);
+        rooms.put(room.getId(), room);
+        return room::start;
+    }
+
+    //Front: announce the room to its node, then send both players there with their tickets
+    private Runnable moveRoom(int id, int to, ClientHandler first, ClientHandler second) {
+        placed.put(id, to);
+        String firstTicket = newToken(), secondTicket = newToken();
+        return () -> {
+            cluster.publish(Cluster.seats(to), out -> {
+                out.writeByte(Cluster.SEAT_PLAYERS);
+                out.writeInt(id);
+                out.writeUTF(first.getname());
+                out.writeUTF(firstTicket);
+                out.writeUTF(second.getname());
+                out.writeUTF(secondTicket);
+            });
+            System.out.println("Room " + id + " placed on node " + to + ": " + first.getname() + " vs " + second.getname());
+            for (ClientHandler player : Arrays.asList(first, second)) {
+                closeSession(player.getSession(), player); // their session starts over on the node
+            }
+            first.redirect(cluster.host(to), cluster.port(to), firstTicket);
+            second.redirect(cluster.host(to), cluster.port(to), secondTicket);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.test.game.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+//Bus for nodes running in one JVM, standing in for a message broker: publishing queues the message
+//and one thread delivers everything in order, so handlers see the same asynchrony they would over a network.
+class LocalBus implements Bus, Runnable {
+    private static final class Delivery {
+        final String topic;
+        final byte[] payload;
+
+        Delivery(String topic, byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+
+    private final Map<String, List<Consumer<byte[]>>> subscribers = new ConcurrentHashMap<>();
+    private final BlockingQueue<Delivery> queue = new LinkedBlockingQueue<>();
+
+    LocalBus() {
+        Thread thread = new Thread(this, "bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload) {
+        queue.add(new Delivery(topic, payload));
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<byte[]> handler) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Delivery delivery;
+            try {
+                delivery = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Consumer<byte[]>> handlers = subscribers.get(delivery.topic);
+            if (handlers == null) continue; // nobody listens, like a broker topic without consumers
+            for (Consumer<byte[]> handler : handlers) {
+                try {
+                    handler.accept(delivery.payload);
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // one broken handler must not stop the others
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.test.game.server;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Players waiting for an opponent, paired by rating. Everyone accepts opponents within a window around their own rating
+//that widens the longer they wait, so a pair forms between the closest ratings early and between anyone eventually.
+//
+//Waiting players are kept sorted by rating, so the closest opponents of a player are its two neighbours: adding,
+//pairing and removing are O(log n). Joins and leaves don't wait for a lock: they go on a queue, and whichever thread
+//gets the lock next applies everything queued and pairs whoever it can. A burst of joins from many threads is handled
+//by the one that holds the lock while the others go back to their sockets, until so much is queued that they help.
+class Matchmaker {
+    //Rating difference everyone accepts at once, and how much it widens per second of waiting
+    private static final int WINDOW = Integer.getInteger("hangman.matchWindow", 100);
+    private static final int WIDEN_PER_SECOND = Integer.getInteger("hangman.matchWidenPerSecond", 50);
+    //How often waiting players are paired again as their windows widen
+    private static final int RETRY_MILLIS = 1000;
+    //Queued joins and leaves past which a caller waits for the lock rather than leave more work to its holder
+    private static final int MAX_QUEUED = 1024;
+
+    //Opens a room for a pair, null if no room is free. Called with the matchmaker's lock held.
+    interface Rooms {
+        Runnable open(ClientHandler first, ClientHandler second);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final ClientHandler player;
+        final int rating;
+        final long since = System.nanoTime();
+        final boolean leaving; //queued removal, not a waiting player
+        long seq; //arrival order, breaks rating ties; set once applied
+
+        Entry(ClientHandler player, int rating, boolean leaving) {
+            this.player = player;
+            this.rating = rating;
+            this.leaving = leaving;
+        }
+
+        //Rating difference this player accepts by now
+        long window(long now) {
+            return WINDOW + (now - since) * WIDEN_PER_SECOND / 1_000_000_000L;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (rating != other.rating) return Integer.compare(rating, other.rating);
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final Rooms rooms;
+    private final TimerWheel timers;
+    private final Queue<Entry> queued = new ConcurrentLinkedQueue<>(); //joins and leaves not applied yet
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicBoolean everyone = new AtomicBoolean(); //a retry is due, whoever holds the lock next does it
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+    //lock:
+    private final TreeSet<Entry> byRating = new TreeSet<>();
+    private final Map<ClientHandler, Entry> byArrival = new LinkedHashMap<>(); //oldest first
+    private long seq = 0;
+    private boolean full = false; //the last pair found no room, wait for retry()
+
+    Matchmaker(Rooms rooms, TimerWheel timers) {
+        this.rooms = rooms;
+        this.timers = timers;
+    }
+
+    void join(ClientHandler player, int rating) {
+        queued.add(new Entry(player, rating, false));
+        queuedCount.incrementAndGet();
+        pair();
+    }
+
+    void leave(ClientHandler player) {
+        queued.add(new Entry(player, 0, true));
+        queuedCount.incrementAndGet();
+        pair();
+    }
+
+    //Takes a waiting player out at once, false if it is not waiting (any more)
+    boolean take(ClientHandler player) {
+        boolean taken;
+        lock.lock();
+        try {
+            apply();
+            taken = remove(player);
+        } finally {
+            lock.unlock();
+        }
+        retry(); // whoever else was queued still needs an opponent
+        return taken;
+    }
+
+    //A room was freed, or the windows widened: pair everyone who can be paired now
+    void retry() {
+        everyone.set(true);
+        pair();
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return byArrival.size() + queuedCount.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Whoever gets the lock pairs for everyone; rooms are started after it is released.
+    //A thread that finds the lock taken leaves its work to the holder, who looks again after unlocking.
+    private void pair() {
+        while (acquire()) {
+            List<Runnable> opened = new ArrayList<>();
+            try {
+                boolean all = everyone.getAndSet(false);
+                if (all) full = false;
+                List<Entry> joined = apply();
+                if (!full) {
+                    for (Entry entry : all ? new ArrayList<>(byArrival.values()) : joined) {
+                        if (!match(entry, opened)) break;
+                    }
+                }
+                scheduleRetry();
+            } finally {
+                lock.unlock();
+            }
+            for (Runnable start : opened) {
+                start.run();
+            }
+            if (queued.isEmpty() && !everyone.get()) return;
+        }
+    }
+
+    //The lock if it is free. With a long queue its holder is falling behind a burst: then wait for it, which holds
+    //the caller back like a full queue would, and take a share of the work.
+    private boolean acquire() {
+        if (lock.tryLock()) return true;
+        if (queuedCount.get() < MAX_QUEUED) return false;
+        lock.lock();
+        return true;
+    }
+
+    //Lock held: applies the queue, returns the players that joined
+    private List<Entry> apply() {
+        List<Entry> joined = new ArrayList<>();
+        Entry next;
+        while ((next = queued.poll()) != null) {
+            queuedCount.decrementAndGet();
+            if (next.leaving) {
+                remove(next.player);
+                continue;
+            }
+            if (byArrival.containsKey(next.player)) continue;
+            next.seq = seq++;
+            byRating.add(next);
+            byArrival.put(next.player, next);
+            joined.add(next);
+        }
+        return joined;
+    }
+
+    //Lock held: pairs a waiting player with the closer of its neighbours whose window allows it.
+    //The wider window of the two counts, so someone who waited long is not held back by a newcomer.
+    //False if a pair was found but no room was free.
+    private boolean match(Entry entry, List<Runnable> opened) {
+        if (byArrival.get(entry.player) != entry) return true; // paired or gone meanwhile
+        long now = System.nanoTime();
+        Entry best = null;
+        long bestGap = 0;
+        for (Entry neighbour : Arrays.asList(byRating.lower(entry), byRating.higher(entry))) {
+            if (neighbour == null) continue;
+            long gap = Math.abs((long) neighbour.rating - entry.rating);
+            if (gap > Math.max(entry.window(now), neighbour.window(now))) continue;
+            if (best == null || gap < bestGap) {
+                best = neighbour;
+                bestGap = gap;
+            }
+        }
+        if (best == null) return true;
+        Entry first = best.seq < entry.seq ? best : entry, second = first == best ? entry : best; //in arrival order
+        Runnable start = rooms.open(first.player, second.player);
+        if (start == null) {
+            full = true;
+            return false;
+        }
+        remove(first.player);
+        remove(second.player);
+        Metrics.matchWaitMillis.record((now - first.since) / 1_000_000);
+        Metrics.matchWaitMillis.record((now - second.since) / 1_000_000);
+        opened.add(start);
+        return true;
+    }
+
+    private boolean remove(ClientHandler player) {
+        Entry entry = byArrival.remove(player);
+        if (entry == null) return false;
+        byRating.remove(entry);
+        return true;
+    }
+
+    //Lock held: players still waiting get another chance once their windows have widened
+    private void scheduleRetry() {
+        if (byArrival.size() < 2 || full || !retryScheduled.compareAndSet(false, true)) return;
+        timers.schedule(() -> {
+            retryScheduled.set(false);
+            retry();
+        }, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,28 @@
+package com.test.game.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Counters the server updates on its hot paths. Only LongAdders and lock-free histograms, so
+//recording never blocks a room or a selector thread. MetricsReporter turns them into snapshots.
+final class Metrics {
+    static final LongAdder connectionsOpened = new LongAdder();
+    static final LongAdder connectionsClosed = new LongAdder();
+    static final LongAdder bytesIn = new LongAdder(); //read from sockets
+    static final LongAdder bytesOut = new LongAdder(); //written to sockets
+    static final LongAdder inputs = new LongAdder(); //lines and frames handed to rooms
+    static final LongAdder guesses = new LongAdder();
+    static final LongAdder chats = new LongAdder();
+    static final LongAdder chatsLimited = new LongAdder(); //chat lines refused by the rate limit
+    static final LongAdder dropped = new LongAdder(); //players dropped for not reading their output
+    static final LongAdder timedOut = new LongAdder(); //connections dropped for going silent or not taking output in time
+    //Input read from the socket until the room has flushed everything it caused, in microseconds.
+    //nio flushes write to the socket, the blocking transports hand the bytes to their writer task.
+    static final Histogram inputToFlush = new Histogram();
+    //Bytes a connection has waiting (queued or still being written) each time it is flushed
+    static final Histogram sendQueueBytes = new Histogram();
+    //How long each paired player waited for an opponent, in milliseconds
+    static final Histogram matchWaitMillis = new Histogram();
+
+    private Metrics() {
+    }
+}
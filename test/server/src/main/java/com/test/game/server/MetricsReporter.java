@@ -0,0 +1,154 @@
+package com.test.game.server;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+//Turns Metrics into a text snapshot every few seconds: rates and percentiles are over the last interval,
+//totals since start. The latest snapshot is written to a file and/or served on a loopback-only admin port.
+class MetricsReporter implements Runnable {
+    private final Lobby lobby;
+    private final long intervalMillis;
+    private final File file; //null for none
+    private volatile String latest = "# no snapshot yet\n";
+
+    //Totals at the previous snapshot, for the interval rates
+    private long lastTime = System.nanoTime();
+    private long lastBytesIn, lastBytesOut, lastInputs, lastGuesses, lastChats;
+    private long[] lastLatency = Metrics.inputToFlush.snapshot();
+    private long[] lastQueue = Metrics.sendQueueBytes.snapshot();
+    private long[] lastWait = Metrics.matchWaitMillis.snapshot();
+
+    MetricsReporter(Lobby lobby, int intervalSeconds, File file) {
+        this.lobby = lobby;
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, intervalSeconds));
+        this.file = file;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            latest = snapshot();
+            if (file != null) write(latest);
+        }
+    }
+
+    //Serves the latest snapshot to anything that connects, e.g. curl http://127.0.0.1:<port>/
+    void serve(int port) throws IOException {
+        ServerSocket admin = new ServerSocket(port, 8, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (true) {
+                try (Socket client = admin.accept()) {
+                    client.setSoTimeout(1000);
+                    drainRequest(client.getInputStream());
+                    OutputStream out = client.getOutputStream();
+                    byte[] body = latest.getBytes(StandardCharsets.UTF_8);
+                    out.write(("HTTP/1.0 200 OK\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: " + body.length + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+                    out.write(body);
+                    out.flush();
+                } catch (IOException e) {
+                    // the client went away, keep serving the next one
+                }
+            }
+        }, "metrics-admin");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    //Reads the HTTP request headers up to the blank line, the path does not matter
+    private static void drainRequest(InputStream in) throws IOException {
+        int matched = 0, b;
+        while (matched < 4 && (b = in.read()) >= 0) {
+            matched = b == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+    }
+
+    private String snapshot() {
+        long now = System.nanoTime();
+        double seconds = (now - lastTime) / 1e9;
+        lastTime = now;
+        long bytesIn = Metrics.bytesIn.sum(), bytesOut = Metrics.bytesOut.sum();
+        long inputs = Metrics.inputs.sum(), guesses = Metrics.guesses.sum(), chats = Metrics.chats.sum();
+        long[] latency = Metrics.inputToFlush.snapshot(), queue = Metrics.sendQueueBytes.snapshot(), wait = Metrics.matchWaitMillis.snapshot();
+        long[] latencyInterval = minus(latency, lastLatency), queueInterval = minus(queue, lastQueue), waitInterval = minus(wait, lastWait);
+
+        StringBuilder text = new StringBuilder(1024);
+        text.append("# hangman server, ").append(new Date()).append(", rates and percentiles over the last ")
+                .append(Math.round(seconds)).append(" s\n");
+        line(text, "connections_active", Metrics.connectionsOpened.sum() - Metrics.connectionsClosed.sum());
+        line(text, "connections_opened_total", Metrics.connectionsOpened.sum());
+        line(text, "players_dropped_total", Metrics.dropped.sum());
+        line(text, "connections_timed_out_total", Metrics.timedOut.sum());
+        line(text, "chats_limited_total", Metrics.chatsLimited.sum());
+        line(text, "players_waiting", lobby.waitingPlayers());
+        line(text, "rooms_active", lobby.activeRooms());
+        rate(text, "inputs", inputs, lastInputs, seconds);
+        rate(text, "guesses", guesses, lastGuesses, seconds);
+        rate(text, "chats", chats, lastChats, seconds);
+        rate(text, "bytes_in", bytesIn, lastBytesIn, seconds);
+        rate(text, "bytes_out", bytesOut, lastBytesOut, seconds);
+        percentiles(text, "input_to_flush_micros", latencyInterval);
+        percentiles(text, "send_queue_bytes", queueInterval);
+        percentiles(text, "match_wait_millis", waitInterval);
+
+        lastBytesIn = bytesIn;
+        lastBytesOut = bytesOut;
+        lastInputs = inputs;
+        lastGuesses = guesses;
+        lastChats = chats;
+        lastLatency = latency;
+        lastQueue = queue;
+        lastWait = wait;
+        return text.toString();
+    }
+
+    private static void line(StringBuilder text, String name, long value) {
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void rate(StringBuilder text, String name, long total, long previous, double seconds) {
+        line(text, name + "_total", total);
+        text.append(name).append("_per_second ").append(String.format("%.1f", (total - previous) / seconds)).append('\n');
+    }
+
+    private static void percentiles(StringBuilder text, String name, long[] counts) {
+        line(text, name + "_count", Histogram.total(counts));
+        for (String q : new String[]{"0.5", "0.9", "0.99", "0.999", "1"}) {
+            text.append(name).append("{quantile=\"").append(q).append("\"} ")
+                    .append(Histogram.percentile(counts, Double.parseDouble(q))).append('\n');
+        }
+    }
+
+    private static long[] minus(long[] now, long[] before) {
+        long[] interval = new long[now.length];
+        for (int i = 0; i < now.length; i++) {
+            interval[i] = now[i] - before[i];
+        }
+        return interval;
+    }
+
+    //Write next to the target and rename, so readers never see half a snapshot
+    private void write(String snapshot) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            out.write(snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            file.delete();
+            if (!temp.renameTo(file)) System.out.println("Could not write metrics to " + file);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.test.game.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+//Client on a non-blocking channel. Bytes are read by the client's EventLoop and passed on as they arrive.
+class NioClientHandler extends ClientHandler {
+    private final SocketChannel socket;
+    private SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+    private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>(); //output not written to the socket yet
+    private int pendingBytes = 0;
+    private long stalledSince = 0; //System.nanoTime() since the socket last took any of the pending output, 0 when all went out
+    private ByteBuffer[] batch = new ByteBuffer[16]; //reused for gathering writes
+    private boolean closeWhenFlushed = false;
+    private boolean closed = false;
+
+    public NioClientHandler(SocketChannel socket, Lobby lobby) {
+        super(lobby);
+        this.socket = socket;
+    }
+
+    //Called on the EventLoop thread once the channel is registered with its selector
+    void register(Selector selector) throws IOException {
+        key = socket.register(selector, SelectionKey.OP_READ, this);
+        greet();
+    }
+
+    //Read what is available and dispatch every complete line or frame
+    void onReadable() {
+        int n;
+        try {
+            n = socket.read(readBuffer);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            closeNow();
+            onDisconnect();
+            return;
+        }
+        readBuffer.flip();
+        onBytes(readBuffer);
+        readBuffer.clear();
+    }
+
+    //Write what the socket could not take earlier
+    void onWritable() {
+        boolean ok;
+        synchronized (this) {
+            if (closed) return;
+            ok = writePending();
+        }
+        if (!ok) onDisconnect(); // outside our lock, the room locks itself first and then us
+    }
+
+    //Only queue here, the room flushes once it has produced everything for one input
+    @Override
+    protected synchronized void write(ByteBuffer buffer) {
+        if (closed || closeWhenFlushed) return;
+        pendingWrites.add(buffer);
+        pendingBytes += buffer.remaining();
+    }
+
+    @Override
+    public synchronized boolean flush() {
+        if (closed || pendingWrites.isEmpty()) return true;
+        Metrics.sendQueueBytes.record(pendingBytes);
+        if (pendingBytes > MAX_PENDING_BYTES) {
+            closeNow(); // it stopped reading, don't let it pile up memory
+            return false;
+        }
+        if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+            return true; // the selector finishes the earlier output first, this batch follows it
+        }
+        return writePending();
+    }
+
+    //One gathering write of everything queued, waits for OP_WRITE if the socket can't take it all.
+    //Returns false if the connection broke.
+    private boolean writePending() {
+        if (batch.length < pendingWrites.size()) {
+            batch = new ByteBuffer[Math.max(pendingWrites.size(), batch.length * 2)];
+        }
+        int count = 0;
+        for (ByteBuffer buffer : pendingWrites) {
+            batch[count++] = buffer;
+        }
+        try {
+            long written = socket.write(batch, 0, count);
+            pendingBytes -= written;
+            Metrics.bytesOut.add(written);
+            if (written > 0 || stalledSince == 0) stalledSince = System.nanoTime();
+        } catch (IOException e) {
+            closeNow();
+            return false;
+        } finally {
+            Arrays.fill(batch, 0, count, null);
+        }
+        while (!pendingWrites.isEmpty() && !pendingWrites.peek().hasRemaining()) {
+            pendingWrites.poll();
+        }
+        if (!pendingWrites.isEmpty()) {
+            if ((key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                key.selector().wakeup();
+            }
+            return true;
+        }
+        stalledSince = 0;
+        key.interestOps(SelectionKey.OP_READ);
+        if (closeWhenFlushed) closeNow();
+        return true;
+    }
+
+    @Override
+    public synchronized void closeConnection() {
+        flush();
+        if (pendingWrites.isEmpty()) {
+            closeNow();
+        } else {
+            closeWhenFlushed = true;
+        }
+    }
+
+    @Override
+    protected synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    protected synchronized long writeStalledSince() {
+        return stalledSince;
+    }
+
+    @Override
+    protected void abort() {
+        closeNow();
+    }
+
+    //Handling this client threw on the loop thread: drop it, whatever state it was left in
+    void fail() {
+        closeNow();
+        try {
+            onDisconnect();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void closeNow() {
+        if (closed) return;
+        closed = true;
+        Metrics.connectionsClosed.increment();
+        pendingWrites.clear();
+        pendingBytes = 0;
+        if (key != null) key.cancel();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.util.*;
+
+//Every player's record and Elo rating, and the leaderboard over the ratings.
+//A record is {wins, losses, rating}. After each round the winner takes points from the loser: more the less likely
+//the win was given their ratings, and more while a player has few rounds, so a new player finds their level quickly.
+//Shared by all the rooms of a server behind one lock: a round end is two map lookups and two O(log R) tree updates.
+final class Ratings {
+    static final int WINS = 0, LOSSES = 1, RATING = 2;
+    static final int INITIAL = 1500;
+    //How far one round moves a rating at most, for players with fewer rounds than NEW_ROUNDS and after
+    private static final int K_NEW = 40, K = 20, NEW_ROUNDS = 30;
+
+    //Where a player stands
+    static final class Standing {
+        final String name;
+        final int wins, losses, rating, rank, players;
+
+        Standing(String name, int[] record, int rank, int players) {
+            this.name = name;
+            this.wins = record[WINS];
+            this.losses = record[LOSSES];
+            this.rating = record[RATING];
+            this.rank = rank;
+            this.players = players;
+        }
+    }
+
+    private final Map<String, int[]> records = new HashMap<>();
+    private final Leaderboard board = new Leaderboard();
+
+    static int[] newRecord() {
+        return new int[]{0, 0, INITIAL};
+    }
+
+    //Elo update of a finished round, also used to replay the event log
+    static void update(int[] chooser, int[] guesser, boolean guesserWon) {
+        double expected = 1 / (1 + Math.pow(10, (chooser[RATING] - guesser[RATING]) / 400.0)); //that the guesser wins
+        double result = guesserWon ? 1 : 0;
+        guesser[RATING] = Leaderboard.clamp(guesser[RATING] + (int) Math.round(k(guesser) * (result - expected)));
+        chooser[RATING] = Leaderboard.clamp(chooser[RATING] + (int) Math.round(k(chooser) * (expected - result)));
+        guesser[guesserWon ? WINS : LOSSES]++;
+        chooser[guesserWon ? LOSSES : WINS]++;
+    }
+
+    private static int k(int[] record) {
+        return record[WINS] + record[LOSSES] < NEW_ROUNDS ? K_NEW : K;
+    }
+
+    //Replaces everything with these records, as recovered from the log
+    synchronized void load(Map<String, int[]> recovered) {
+        for (Map.Entry<String, int[]> record : records.entrySet()) {
+            board.remove(record.getKey(), record.getValue()[RATING]);
+        }
+        records.clear();
+        for (Map.Entry<String, int[]> record : recovered.entrySet()) {
+            int[] copy = record.getValue().clone();
+            records.put(record.getKey(), copy);
+            board.add(record.getKey(), copy[RATING]);
+        }
+    }
+
+    //A copy of every record
+    synchronized Map<String, int[]> records() {
+        Map<String, int[]> copy = new HashMap<>(records.size() * 2);
+        for (Map.Entry<String, int[]> record : records.entrySet()) {
+            copy.put(record.getKey(), record.getValue().clone());
+        }
+        return copy;
+    }
+
+    //outcome is Message.GUESSER_WON or GUESSER_LOST
+    synchronized void scored(String chooser, String guesser, int outcome) {
+        int[] chooserRecord = enter(chooser), guesserRecord = enter(guesser);
+        board.remove(chooser, chooserRecord[RATING]);
+        board.remove(guesser, guesserRecord[RATING]);
+        update(chooserRecord, guesserRecord, outcome == Message.GUESSER_WON);
+        board.add(chooser, chooserRecord[RATING]);
+        board.add(guesser, guesserRecord[RATING]);
+    }
+
+    private int[] enter(String name) {
+        return records.computeIfAbsent(name, n -> newRecord());
+    }
+
+    //null for a player without a finished round
+    synchronized Standing standing(String name) {
+        int[] record = records.get(name);
+        return record == null ? null : new Standing(name, record, board.rank(record[RATING]), board.size());
+    }
+
+    synchronized int rating(String name) {
+        int[] record = records.get(name);
+        return record == null ? INITIAL : record[RATING];
+    }
+
+    //The best n players, best first
+    synchronized List<Standing> top(int n) {
+        List<Standing> top = new ArrayList<>();
+        for (String name : board.top(n)) {
+            int[] record = records.get(name);
+            top.add(new Standing(name, record, board.rank(record[RATING]), board.size()));
+        }
+        return top;
+    }
+}
@@ -0,0 +1,137 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.util.Arrays;
+
+//Secret word, guesses and chances of one round. The word is indexed when the round starts:
+//every letter maps to a bitmask of its positions, so a guess is a couple of lookups and allocates nothing.
+//A room keeps one instance and restarts it every round, the arrays are sized for the longest word.
+final class RoundState {
+    private String secret = "";
+    private int length = 0;
+    private final char[] shown = new char[Message.MAX_WORD_LENGTH]; //the word as the guesser sees it, blanks are '_'
+    private final long[] letterPositions = new long[26]; //positions of a..z, either case
+    private final char[] otherLetters = new char[Message.MAX_WORD_LENGTH]; //any other character in the word, lower case
+    private final long[] otherPositions = new long[Message.MAX_WORD_LENGTH]; //and its positions
+    private int otherCount = 0;
+    private final long[] guessedAscii = new long[2]; //guessed characters below 128, lower case
+    private char[] guessedOther = new char[4]; //guessed characters from 128 up, rare enough to search
+    private int guessedOtherCount = 0;
+    private long revealed = 0; //bit i set once position i is shown
+    private int blanks = 0; //positions not shown yet
+    private int remainingChances = 0;
+
+    //Index a new secret word and forget the previous round
+    void start(String secret) {
+        if (secret.length() > Message.MAX_WORD_LENGTH) {
+            throw new IllegalArgumentException("Secret word longer than " + Message.MAX_WORD_LENGTH + " characters");
+        }
+        this.secret = secret;
+        length = secret.length();
+        Arrays.fill(shown, 0, length, '_');
+        Arrays.fill(letterPositions, 0L);
+        otherCount = 0;
+        guessedAscii[0] = guessedAscii[1] = 0L;
+        guessedOtherCount = 0;
+        revealed = 0;
+        blanks = length;
+        remainingChances = Message.ROUND_CHANCES;
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(secret.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                letterPositions[c - 'a'] |= 1L << i;
+                continue;
+            }
+            int j = 0;
+            while (j < otherCount && otherLetters[j] != c) j++;
+            if (j == otherCount) {
+                otherLetters[otherCount] = c;
+                otherPositions[otherCount++] = 0L;
+            }
+            otherPositions[j] |= 1L << i;
+        }
+    }
+
+    //Evaluate one guess, returns Message.RESULT_CORRECT, RESULT_WRONG or RESULT_ALREADY. Letters are matched ignoring case.
+    int guess(char letter) {
+        char c = Character.toLowerCase(letter);
+        if (!markGuessed(c)) return Message.RESULT_ALREADY;
+        long positions = positionsOf(c);
+        if (positions == 0) {
+            remainingChances--;
+            return Message.RESULT_WRONG;
+        }
+        revealed |= positions;
+        blanks -= Long.bitCount(positions);
+        for (long rest = positions; rest != 0; rest &= rest - 1) {
+            int i = Long.numberOfTrailingZeros(rest);
+            shown[i] = secret.charAt(i);
+        }
+        return Message.RESULT_CORRECT;
+    }
+
+    //Positions the letter occupies in the secret word (bit i = position i), 0 if none
+    long positionsOf(char letter) {
+        char c = Character.toLowerCase(letter);
+        if (c >= 'a' && c <= 'z') return letterPositions[c - 'a'];
+        for (int j = 0; j < otherCount; j++) {
+            if (otherLetters[j] == c) return otherPositions[j];
+        }
+        return 0;
+    }
+
+    //Records the guess, false if it was guessed before
+    private boolean markGuessed(char c) {
+        if (c < 128) {
+            long bit = 1L << (c & 63);
+            int word = c >> 6;
+            if ((guessedAscii[word] & bit) != 0) return false;
+            guessedAscii[word] |= bit;
+            return true;
+        }
+        for (int j = 0; j < guessedOtherCount; j++) {
+            if (guessedOther[j] == c) return false;
+        }
+        if (guessedOtherCount == guessedOther.length) {
+            guessedOther = Arrays.copyOf(guessedOther, guessedOtherCount * 2);
+        }
+        guessedOther[guessedOtherCount++] = c;
+        return true;
+    }
+
+    //Characters of the secret word at the given positions, in order
+    String lettersAt(long positions) {
+        StringBuilder letters = new StringBuilder(Long.bitCount(positions));
+        for (long rest = positions; rest != 0; rest &= rest - 1) {
+            letters.append(secret.charAt(Long.numberOfTrailingZeros(rest)));
+        }
+        return letters.toString();
+    }
+
+    boolean isSolved() {
+        return blanks == 0;
+    }
+
+    //Round goes on while the word has blanks and chances are left
+    boolean isOver() {
+        return blanks == 0 || remainingChances == 0;
+    }
+
+    int remainingChances() {
+        return remainingChances;
+    }
+
+    long revealed() {
+        return revealed;
+    }
+
+    String secret() {
+        return secret;
+    }
+
+    //Current masked word, allocates a String: only for building messages
+    String shownWord() {
+        return new String(shown, 0, length);
+    }
+}
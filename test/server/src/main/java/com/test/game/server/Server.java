@@ -0,0 +1,175 @@
+package com.test.game.server;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.*;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Server {
+    private static final int PORT = 5000; //port number
+    // Rooms admitted per available core; pairs beyond the ceiling wait in the lobby until a room closes
+    private static final int ROOMS_PER_CORE = Integer.getInteger("hangman.roomsPerCore", 250);
+    private static final int MAX_ROOMS = ROOMS_PER_CORE * Runtime.getRuntime().availableProcessors();
+    // Selector threads; every connection stays on the one it was assigned to
+    private static final int IO_THREADS = Integer.getInteger("hangman.ioThreads", Runtime.getRuntime().availableProcessors());
+    // nio: selector threads (default), virtual/platform: one blocking thread per connection
+    private static final String TRANSPORT = System.getProperty("hangman.transport", "nio");
+    // Rounds and scores are logged here and recovered on startup, empty to keep nothing
+    private static final String DATA_DIR = System.getProperty("hangman.dataDir", "data");
+    private static final int LOG_SEGMENT_MB = Integer.getInteger("hangman.logSegmentMB", 16);
+    // Group commit: the event log is forced to disk this often, not on every event
+    private static final int LOG_SYNC_MILLIS = Integer.getInteger("hangman.logSyncMillis", 20);
+    private static Lobby lobby;
+    // Cluster: this many nodes on the ports after PORT, players meet on PORT and are sent to a node once paired. 0 for one server.
+    private static final int CLUSTER_NODES = Integer.getInteger("hangman.cluster", 0);
+    // Address clients are sent to for the nodes
+    private static final String CLUSTER_HOST = System.getProperty("hangman.clusterHost", "127.0.0.1");
+    // Metrics snapshots: every few seconds to a file and/or on a loopback-only admin port, both off by default
+    private static final String METRICS_FILE = System.getProperty("hangman.metricsFile");
+    private static final int ADMIN_PORT = Integer.getInteger("hangman.adminPort", 0);
+    private static final int METRICS_SECONDS = Integer.getInteger("hangman.metricsSeconds", 10);
+
+    public static void main(String[] args) {
+        try {
+            if (CLUSTER_NODES > 0) {
+                lobby = startCluster();
+            } else {
+                lobby = new Lobby(MAX_ROOMS, openLog(DATA_DIR));
+            }
+            startMetrics();
+            Thread words = new Thread(Dictionary::get, "dictionary"); // the word list, ready before a bot or a check needs it
+            words.setDaemon(true);
+            words.start();
+            serve(PORT, lobby, "");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static EventLog openLog(String dir) throws IOException {
+        return DATA_DIR.isEmpty() ? EventLog.OFF : new EventLog(new File(dir), LOG_SEGMENT_MB << 20, LOG_SYNC_MILLIS);
+    }
+
+    //One front and CLUSTER_NODES nodes in this process, each with its own lobby, listening port and event log,
+    //talking over an in-process bus. Returns the front's lobby.
+    //They all run on this machine's cores, so they split its room limit: nodes in one process add no capacity.
+    private static Lobby startCluster() throws IOException {
+        int rooms = Math.max(1, MAX_ROOMS / (CLUSTER_NODES + 1));
+        int[] ports = new int[CLUSTER_NODES];
+        List<EventLog> logs = new ArrayList<>();
+        logs.add(openLog(DATA_DIR));
+        for (int node = 0; node < ports.length; node++) {
+            ports[node] = PORT + 1 + node;
+            logs.add(openLog(DATA_DIR + File.separator + "node-" + node));
+        }
+        EventLog.share(logs); // scores and room ids of every node, before any lobby numbers a room
+        Cluster cluster = new Cluster(new LocalBus(), CLUSTER_HOST, ports, rooms);
+        for (int node = 0; node < ports.length; node++) {
+            Lobby nodeLobby = new Lobby(rooms, logs.get(node + 1), cluster, node);
+            int port = ports[node];
+            String name = "node-" + node;
+            new Thread(() -> {
+                try {
+                    serve(port, nodeLobby, name + "-");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, name).start();
+        }
+        System.out.println("Cluster of " + ports.length + " nodes on ports " + ports[0] + "-" + ports[ports.length - 1]
+                + ", players meet on " + PORT + ", " + rooms + " rooms each");
+        return new Lobby(rooms, logs.get(0), cluster, Cluster.FRONT);
+    }
+
+    //Accept connections on the port for the lobby, forever. The prefix tells the threads of several nodes apart.
+    private static void serve(int port, Lobby lobby, String prefix) throws IOException {
+        if (TRANSPORT.equalsIgnoreCase("virtual")) {
+            ThreadFactory threads = virtualThreads(prefix);
+            if (threads == null) {
+                System.out.println("Virtual threads need Java 21 or newer, using platform threads");
+                threads = platformThreads(prefix);
+            }
+            runThreadPerConnection(port, lobby, threads);
+        } else if (TRANSPORT.equalsIgnoreCase("platform")) {
+            runThreadPerConnection(port, lobby, platformThreads(prefix));
+        } else {
+            runSelectors(port, lobby, prefix);
+        }
+    }
+
+    //Non-blocking mode: connections are spread over a few selector threads
+    private static void runSelectors(int port, Lobby lobby, String prefix) throws IOException {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) { //server socket
+            serverChannel.bind(new InetSocketAddress(InetAddress.getByName("0.0.0.0"), port), 128);
+            EventLoop[] loops = new EventLoop[IO_THREADS];
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new EventLoop();
+                new Thread(loops[i], prefix + "io-" + i).start();
+            }
+            System.out.println("Server is running on port " + port + " (room limit: " + MAX_ROOMS + ", io threads: " + IO_THREADS + ")");
+
+            //accept players forever and spread them over the selector threads
+            int next = 0;
+            while (true) {
+                SocketChannel clientChannel = serverChannel.accept();
+                clientChannel.configureBlocking(false);
+                clientChannel.socket().setTcpNoDelay(true); // prompts are small lines, don't hold them back
+                loops[next++ % loops.length].register(new NioClientHandler(clientChannel, lobby));
+                System.out.println("Client connected: " + clientChannel.socket().getInetAddress());
+            }
+        }
+    }
+
+    //Blocking mode: every connection gets its own thread that waits for input
+    private static void runThreadPerConnection(int port, Lobby lobby, ThreadFactory threads) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 128, InetAddress.getByName("0.0.0.0"))) { //server socket
+            System.out.println("Server is running on port " + port + " (room limit: " + MAX_ROOMS + ", transport: " + TRANSPORT + ")");
+            Executor writers = Executors.newCachedThreadPool(threads); //output is written apart from the reading threads
+
+            //accept players forever, each one is served by its own thread
+            while (true) {
+                Socket clientSocket = serverSocket.accept();
+                clientSocket.setTcpNoDelay(true);
+                threads.newThread(new BlockingClientHandler(clientSocket, lobby, writers)).start();
+                System.out.println("Client connected: " + clientSocket.getInetAddress());
+            }
+        }
+    }
+
+    private static void startMetrics() throws IOException {
+        if (METRICS_FILE == null && ADMIN_PORT <= 0) return;
+        MetricsReporter reporter = new MetricsReporter(lobby, METRICS_SECONDS, METRICS_FILE == null ? null : new File(METRICS_FILE));
+        Thread thread = new Thread(reporter, "metrics");
+        thread.setDaemon(true);
+        thread.start();
+        if (ADMIN_PORT > 0) {
+            reporter.serve(ADMIN_PORT);
+            System.out.println("Metrics on http://127.0.0.1:" + ADMIN_PORT + "/");
+        }
+        if (METRICS_FILE != null) System.out.println("Metrics written to " + METRICS_FILE + " every " + METRICS_SECONDS + " s");
+    }
+
+    private static ThreadFactory platformThreads(String prefix) {
+        final AtomicLong count = new AtomicLong();
+        return r -> new Thread(r, prefix + "client-" + count.incrementAndGet());
+    }
+
+    //Thread.ofVirtual().name("client-", 1).factory(), looked up at runtime so the server still builds for Java 8
+    private static ThreadFactory virtualThreads(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "client-", 1L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.test.game.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+//Hashed timer wheel for the server's many timeouts (heartbeats, deadlines, kept seats).
+//One thread advances a ring of slots every tick. Scheduling and cancelling are O(1) however many timeouts are pending,
+//and a tick only walks the timeouts hashed into its slot. Timeouts fire up to one tick late, never early.
+class TimerWheel implements Runnable {
+    private static final int TICK_MILLIS = 100;
+    private static final int SLOTS = 512; //one turn of the wheel is ~51 s, longer timeouts just wait for later turns
+
+    //A pending task. Cancelling only marks it, the wheel drops it when its slot comes round.
+    static final class Timeout {
+        private final Runnable task;
+        private final long tick; //tick it is due on
+        private volatile boolean cancelled = false;
+        private Timeout next; //in its slot, wheel thread only
+
+        private Timeout(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final String name;
+    private final Timeout[] slots = new Timeout[SLOTS];
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>(); //scheduled since the last tick
+    private final long start = System.nanoTime();
+    private long tick = 0; //wheel thread only
+    private boolean started = false;
+
+    TimerWheel(String name) {
+        this.name = name;
+    }
+
+    //Runs the task on the wheel thread after the delay. Tasks must be short: everything else due on that tick waits for them.
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        startOnce(); //benchmarks build lobbies without ever scheduling anything, they get no thread
+        long due = (System.nanoTime() - start + unit.toNanos(Math.max(0, delay))) / TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS) + 1;
+        Timeout timeout = new Timeout(task, due);
+        added.add(timeout);
+        return timeout;
+    }
+
+    private synchronized void startOnce() {
+        if (started) return;
+        started = true;
+        Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        while (true) {
+            long wait = start + (tick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            tick++;
+            Timeout timeout;
+            while ((timeout = added.poll()) != null) {
+                if (timeout.cancelled) continue;
+                int slot = (int) (Math.max(timeout.tick, tick) & (SLOTS - 1)); //overdue ones fire on this tick
+                timeout.next = slots[slot];
+                slots[slot] = timeout;
+            }
+            expire((int) (tick & (SLOTS - 1)));
+        }
+    }
+
+    //Run what is due in one slot, keep what belongs to a later turn of the wheel
+    private void expire(int slot) {
+        Timeout timeout = slots[slot];
+        slots[slot] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.tick > tick && !timeout.cancelled) {
+                timeout.next = slots[slot];
+                slots[slot] = timeout;
+            } else if (!timeout.cancelled) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // one broken task must not stop every other timeout
+                }
+            }
+            timeout = next; // cancelled ones are simply not linked again
+        }
+    }
+}
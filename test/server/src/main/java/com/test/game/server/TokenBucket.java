@@ -0,0 +1,26 @@
+package com.test.game.server;
+
+//Rate limit: up to `burst` actions at once, then `perSecond` on average. Not thread safe, every player's
+//inputs arrive on that player's own thread.
+final class TokenBucket {
+    private final double burst;
+    private final double perNano;
+    private double tokens;
+    private long last = System.nanoTime();
+
+    TokenBucket(double perSecond, int burst) {
+        this.burst = burst;
+        this.perNano = perSecond / 1e9;
+        this.tokens = burst;
+    }
+
+    //Takes one token, false if none is left
+    boolean tryTake() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - last) * perNano);
+        last = now;
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+}
@@ -0,0 +1,249 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Index for the computer guesser: the dictionary's words by length, and for every length one bitset (a bit per word)
+//for each letter at each position, plus one per letter for "anywhere in the word". Narrowing the candidates down to the
+//words that still fit the board is a few ANDs over these bitsets, and counting how many contain a letter is a popcount.
+//A length is indexed the first time a guesser meets it, about 3.3 bytes per letter on top of the dictionary's one.
+final class WordIndex {
+    private static final int LETTERS = 26;
+    //Up to this many candidates a letter is scored by every pattern of positions it could reveal, above by presence alone
+    static final int EXACT_LIMIT = 512;
+    private static final char[] BY_FREQUENCY = "etaoinshrdlucmfwypvbgkjqxz".toCharArray(); //when no word fits
+    private static final double[] K_LOG_K = new double[EXACT_LIMIT + 1];
+
+    static {
+        for (int k = 1; k <= EXACT_LIMIT; k++) {
+            K_LOG_K[k] = k * Math.log(k);
+        }
+    }
+
+    //Bitsets over the words of one dictionary block
+    private static final class Group {
+        final int length, count, blocks;
+        final byte[] letters; //the block's letters: word i starts at i * length
+        final long[] at; //words with letter c at position p: blocks longs from (p * 26 + c) * blocks
+        final long[] has; //words containing letter c: blocks longs from c * blocks
+
+        Group(Dictionary.Block words) {
+            this.length = words.length;
+            this.count = words.count;
+            this.blocks = (count + 63) >>> 6;
+            this.letters = words.letters;
+            this.at = new long[length * LETTERS * blocks];
+            this.has = new long[LETTERS * blocks];
+            for (int i = 0; i < count; i++) {
+                for (int p = 0; p < length; p++) {
+                    int c = letters[i * length + p];
+                    at[(p * LETTERS + c) * blocks + (i >>> 6)] |= 1L << i;
+                    has[c * blocks + (i >>> 6)] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    private final Dictionary words;
+    private final AtomicReferenceArray<Group> groups = new AtomicReferenceArray<>(Message.MAX_WORD_LENGTH + 1);
+
+    WordIndex(Dictionary words) {
+        this.words = words;
+    }
+
+    //The group of a length, indexing it on first use. Two guessers racing for a new length may both build it, one wins.
+    private Group group(int length) {
+        Dictionary.Block block = words.block(length);
+        if (block == null) return null;
+        Group group = groups.get(length);
+        if (group == null) {
+            groups.compareAndSet(length, null, new Group(block));
+            group = groups.get(length);
+        }
+        return group;
+    }
+
+    //Scratch space for scoring, one per thread that runs guessers: (letter, positions) -> number of candidates
+    private static final class Patterns {
+        final int mask = Integer.highestOneBit(EXACT_LIMIT * LETTERS) * 4 - 1; //at most half full
+        final long[] positions = new long[mask + 1];
+        final byte[] letter = new byte[mask + 1];
+        final int[] count = new int[mask + 1];
+        final int[] used = new int[EXACT_LIMIT * LETTERS];
+        int size;
+
+        void add(int c, long pattern) {
+            int slot = (int) mix(pattern * 31 + c) & mask;
+            while (count[slot] != 0 && (positions[slot] != pattern || letter[slot] != c)) {
+                slot = (slot + 1) & mask;
+            }
+            if (count[slot]++ == 0) {
+                positions[slot] = pattern;
+                letter[slot] = (byte) c;
+                used[size++] = slot;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                count[used[i]] = 0;
+            }
+            size = 0;
+        }
+    }
+
+    private static final ThreadLocal<Patterns> PATTERNS = ThreadLocal.withInitial(Patterns::new);
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return z ^ (z >>> 33);
+    }
+
+    Search search() {
+        return new Search();
+    }
+
+    //One guesser's knowledge of a round: the candidates that still fit, narrowed with every answer.
+    //A bot keeps one and restarts it every round. Not thread safe.
+    final class Search {
+        private Group group; //null when no word has the secret's length
+        private long[] candidates = new long[0];
+        private int guessed; //bit c set once letter c was guessed
+        private long revealed; //positions shown so far
+        private final long[] pattern = new long[LETTERS]; //scoring scratch: positions of each letter in one word
+        private final long[] present = new long[LETTERS];
+        private final double[] spread = new double[LETTERS];
+
+        //A new word of this many letters, every word of that length fits
+        void start(int length) {
+            group = group(length);
+            guessed = 0;
+            revealed = 0;
+            if (group == null) return;
+            if (candidates.length < group.blocks) candidates = new long[group.blocks];
+            Arrays.fill(candidates, 0, group.blocks, -1L);
+            int tail = group.count & 63;
+            if (tail != 0) candidates[group.blocks - 1] = (1L << tail) - 1;
+        }
+
+        //The letter is in the word exactly at these positions
+        void hit(char letter, long positions) {
+            int c = Character.toLowerCase(letter) - 'a';
+            if (c < 0 || c >= LETTERS) return;
+            guessed |= 1 << c;
+            if (group == null) return;
+            long open = ~revealed & lengthMask();
+            for (long rest = open; rest != 0; rest &= rest - 1) {
+                int p = Long.numberOfTrailingZeros(rest);
+                int from = (p * LETTERS + c) * group.blocks;
+                if ((positions >>> p & 1) != 0) {
+                    for (int b = 0; b < group.blocks; b++) candidates[b] &= group.at[from + b];
+                } else {
+                    for (int b = 0; b < group.blocks; b++) candidates[b] &= ~group.at[from + b];
+                }
+            }
+            revealed |= positions;
+        }
+
+        //The letter is not in the word
+        void miss(char letter) {
+            int c = Character.toLowerCase(letter) - 'a';
+            if (c < 0 || c >= LETTERS) return;
+            guessed |= 1 << c;
+            if (group == null) return;
+            int from = c * group.blocks;
+            for (int b = 0; b < group.blocks; b++) candidates[b] &= ~group.has[from + b];
+        }
+
+        //Words that still fit
+        int remaining() {
+            if (group == null) return 0;
+            int n = 0;
+            for (int b = 0; b < group.blocks; b++) n += Long.bitCount(candidates[b]);
+            return n;
+        }
+
+        //The letter that tells the most about the word: the one whose answer splits the candidates most evenly.
+        //Ties go to the letter more of them contain. A word not in the list gets the most frequent letters left.
+        char next() {
+            int n = remaining();
+            boolean scored = n > 0 && (n <= EXACT_LIMIT ? scoreByPattern(n) : scoreByPresence(n));
+            if (!scored) {
+                for (char letter : BY_FREQUENCY) {
+                    if ((guessed & 1 << (letter - 'a')) == 0) return letter;
+                }
+                return 'a';
+            }
+            int best = -1;
+            for (int c = 0; c < LETTERS; c++) {
+                if ((guessed & 1 << c) != 0 || present[c] == 0) continue;
+                if (best < 0 || spread[c] > spread[best] || spread[c] == spread[best] && present[c] > present[best]) best = c;
+            }
+            return (char) ('a' + best);
+        }
+
+        //Information of each letter's answer when it only says "in the word" or "not in it", from popcounts
+        private boolean scoreByPresence(int n) {
+            boolean any = false;
+            for (int c = 0; c < LETTERS; c++) {
+                present[c] = 0;
+                if ((guessed & 1 << c) != 0) continue;
+                int from = c * group.blocks;
+                long k = 0;
+                for (int b = 0; b < group.blocks; b++) k += Long.bitCount(candidates[b] & group.has[from + b]);
+                present[c] = k;
+                double p = (double) k / n;
+                spread[c] = k == 0 || k == n ? 0 : -(p * Math.log(p) + (1 - p) * Math.log(1 - p));
+                any |= k > 0;
+            }
+            return any;
+        }
+
+        //Information of each letter's full answer: the candidates split by the positions the letter would reveal.
+        //Entropy is log n - (1/n) sum k log k over the parts, so only the sum needs computing.
+        private boolean scoreByPattern(int n) {
+            Patterns parts = PATTERNS.get();
+            int length = group.length;
+            long open = ~revealed & lengthMask();
+            for (int b = 0; b < group.blocks; b++) {
+                for (long bits = candidates[b]; bits != 0; bits &= bits - 1) {
+                    int base = ((b << 6) + Long.numberOfTrailingZeros(bits)) * length;
+                    int touched = 0;
+                    for (long rest = open; rest != 0; rest &= rest - 1) {
+                        int p = Long.numberOfTrailingZeros(rest);
+                        int c = group.letters[base + p];
+                        pattern[c] |= 1L << p;
+                        touched |= 1 << c;
+                    }
+                    for (; touched != 0; touched &= touched - 1) {
+                        int c = Integer.numberOfTrailingZeros(touched);
+                        parts.add(c, pattern[c]);
+                        pattern[c] = 0;
+                    }
+                }
+            }
+            Arrays.fill(present, 0);
+            Arrays.fill(spread, 0);
+            for (int i = 0; i < parts.size; i++) {
+                int slot = parts.used[i];
+                int c = parts.letter[slot], k = parts.count[slot];
+                present[c] += k;
+                spread[c] += K_LOG_K[k];
+            }
+            parts.clear();
+            boolean any = false;
+            for (int c = 0; c < LETTERS; c++) {
+                if (present[c] == 0) continue;
+                spread[c] = -(spread[c] + K_LOG_K[n - (int) present[c]]); //the part without the letter counts too
+                any = true;
+            }
+            return any;
+        }
+
+        private long lengthMask() {
+            return group.length == 64 ? -1L : (1L << group.length) - 1;
+        }
+    }
+}
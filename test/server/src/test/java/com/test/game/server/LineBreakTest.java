@@ -0,0 +1,44 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import com.test.game.net.WireCodec;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Text in a frame may hold line breaks, a text line can't: they must not reach text players as lines of their own
+public class LineBreakTest {
+    private static final String FAKE = "Congratulations! You won the game!!!";
+
+    @Test
+    public void binaryChatReachesTextPlayersAsOneLine() {
+        Lobby lobby = new Lobby(0); // no rooms, both stay in the lobby and share its chat
+        TestConnection text = new TestConnection(lobby, false), binary = new TestConnection(lobby, true);
+        text.receiveLine("alice");
+        binary.receive(WireCodec.encode(Message.input("bob")));
+        int before = text.lines().size();
+        binary.receive(WireCodec.encode(Message.chat(null, "x\n" + FAKE + "\r\nand more")));
+
+        List<String> lines = text.lines();
+        assertEquals(before + 1, lines.size());
+        String chat = lines.get(lines.size() - 1);
+        assertTrue(chat, chat.contains("[bob] x " + FAKE) && chat.endsWith("and more"));
+    }
+
+    @Test
+    public void namesLoseTheirLineBreaks() {
+        Lobby lobby = new Lobby(0);
+        TestConnection text = new TestConnection(lobby, false), binary = new TestConnection(lobby, true);
+        text.receiveLine("alice");
+        binary.receive(WireCodec.encode(Message.input("bob\n" + FAKE)));
+        int before = text.lines().size();
+        binary.receive(WireCodec.encode(Message.chat(null, "hi")));
+
+        List<String> lines = text.lines();
+        assertEquals(before + 1, lines.size());
+        String chat = lines.get(lines.size() - 1);
+        assertTrue(chat, chat.contains("[bob " + FAKE + "] hi"));
+    }
+}
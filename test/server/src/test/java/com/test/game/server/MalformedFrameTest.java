@@ -0,0 +1,72 @@
+package com.test.game.server;
+
+import com.test.game.net.Message;
+import com.test.game.net.MessageType;
+import com.test.game.net.WireCodec;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+//Frames too short for their type must drop the client that sent them, and only that client
+public class MalformedFrameTest {
+    private final Lobby lobby = new Lobby(1);
+
+    //Each one a whole frame, length included, whose body ends before its fields do
+    private static final byte[][] MALFORMED = {
+        {0, 0},                                  // empty body: no type byte
+        {0, 1, 1},                               // PROMPT without its code
+        {0, 1, 13},                              // CHAT without its strings
+        {0, 2, 13, 0},                           // CHAT with half a string length
+        {0, 5, 13, 0, 10, 'a', 'b'},             // CHAT sender of 10 bytes, 2 sent
+        {0, 2, 8, 1},                            // GUESS without its letter
+        {0, 4, 9, 0, 0, 'a'},                    // GUESS_RESULT without chances left
+        {0, 6, 17, 0, 0, 'a', 6, (byte) 0x80},   // DELTA whose mask never ends
+        {0, 3, 21, 0, 0},                        // WATCH with half a room id
+        {0, 2, 22, 0},                           // REDIRECT with half a port
+    };
+
+    @Test
+    public void malformedFramesCloseTheConnection() {
+        for (byte[] frame : MALFORMED) {
+            TestConnection client = new TestConnection(lobby, true);
+            assertFalse(client.closed);
+            client.receive(frame);
+            assertTrue("still open after " + describe(frame), client.closed);
+        }
+    }
+
+    @Test
+    public void bytesAfterAMalformedFrameAreIgnored() {
+        TestConnection client = new TestConnection(lobby, true);
+        ByteBuffer ping = WireCodec.encode(Message.ping());
+        byte[] bytes = new byte[2 + ping.remaining()];
+        ping.get(bytes, 2, ping.remaining()); // an empty frame, then a ping
+        int before = client.sent.size();
+        client.receive(bytes);
+        assertTrue(client.closed);
+        assertEquals(before, client.sent.size());
+    }
+
+    @Test
+    public void otherConnectionsCarryOn() {
+        TestConnection bad = new TestConnection(lobby, true), good = new TestConnection(lobby, true);
+        bad.receive(MALFORMED[0]);
+        ByteBuffer ping = WireCodec.encode(Message.ping());
+        byte[] bytes = new byte[ping.remaining()];
+        ping.get(bytes);
+        good.receive(bytes);
+        assertTrue(bad.closed);
+        assertFalse(good.closed);
+        ByteBuffer reply = good.sent.get(good.sent.size() - 1).duplicate();
+        reply.position(reply.position() + WireCodec.HEADER_BYTES);
+        assertEquals(MessageType.PONG.code, reply.get());
+    }
+
+    private static String describe(byte[] frame) {
+        StringBuilder s = new StringBuilder();
+        for (byte b : frame) s.append(String.format("%02x ", b));
+        return s.toString().trim();
+    }
+}
@@ -0,0 +1,76 @@
+package com.test.game.server;
+
+import com.test.game.net.TextCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//A connection without a socket: keeps what the server sends it and whether it was closed
+class TestConnection extends ClientHandler {
+    final List<ByteBuffer> sent = new ArrayList<>();
+    boolean closed = false;
+
+    //Greeted like a new connection, binary ones answer the protocol offer
+    TestConnection(Lobby lobby, boolean binary) {
+        super(lobby);
+        greet();
+        if (binary) receiveLine(TextCodec.OFFER);
+    }
+
+    void receive(byte... bytes) {
+        onBytes(ByteBuffer.wrap(bytes));
+    }
+
+    void receiveLine(String line) {
+        receive((line + "\n").getBytes(Charset.defaultCharset()));
+    }
+
+    void receive(ByteBuffer frame) {
+        onBytes(frame.duplicate());
+    }
+
+    //Everything sent so far cut into lines, for a text connection
+    List<String> lines() {
+        StringBuilder text = new StringBuilder();
+        for (ByteBuffer bytes : sent) {
+            ByteBuffer b = bytes.duplicate();
+            byte[] copy = new byte[b.remaining()];
+            b.get(copy);
+            text.append(new String(copy, Charset.defaultCharset()));
+        }
+        return Arrays.asList(text.toString().split("\n"));
+    }
+
+    @Override
+    protected void write(ByteBuffer bytes) {
+        if (!closed) sent.add(bytes);
+    }
+
+    @Override
+    public boolean flush() {
+        return true;
+    }
+
+    @Override
+    public void closeConnection() {
+        closed = true;
+    }
+
+    @Override
+    protected boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    protected void abort() {
+        closed = true;
+    }
+
+    @Override
+    protected long writeStalledSince() {
+        return 0;
+    }
+}
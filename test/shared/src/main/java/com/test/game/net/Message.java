@@ -0,0 +1,180 @@
+package com.test.game.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One typed message of the Hangman protocol.
+ * The same object is written as a binary frame ({@link WireCodec}) or as a text line ({@link TextCodec}),
+ * depending on what the other side negotiated.
+ */
+public final class Message {
+    // PROMPT codes
+    public static final int PROMPT_NAME = 0, PROMPT_SECRET = 1, PROMPT_CLUE = 2, PROMPT_LETTER = 3, PROMPT_PLAY_AGAIN = 4;
+    // GUESS_RESULT codes
+    public static final int RESULT_CORRECT = 0, RESULT_WRONG = 1, RESULT_ALREADY = 2;
+    // ROUND_END codes, from the point of view of the receiver; spectators get the last two
+    public static final int GUESSER_WON = 0, CHOOSER_LOST = 1, GUESSER_LOST = 2, CHOOSER_WON = 3, WATCHED_WON = 4, WATCHED_LOST = 5;
+    // DISCONNECT codes
+    public static final int BYE = 0, DECLINED = 1, LEFT = 2;
+    // NOTICE codes
+    public static final int NOTICE_TEXT = 0, NOTICE_INVALID_GUESS = 1, NOTICE_WAIT_TURN = 2, NOTICE_SLOW_DOWN = 3,
+            NOTICE_RANK = 4, NOTICE_LEADERBOARD = 5;
+    // SNAPSHOT codes, the receiver's role in the round
+    public static final int ROLE_GUESSER = 0, ROLE_CHOOSER = 1, ROLE_SPECTATOR = 2;
+    /** Wrong guesses allowed per round. */
+    public static final int ROUND_CHANCES = 6;
+    /** Longest secret word, so revealed positions fit in {@link #mask}. */
+    public static final int MAX_WORD_LENGTH = 64;
+
+    public final MessageType type;
+    public final int code;     // sub kind, see the constants above
+    public final int value;    // remaining chances for GUESS_RESULT, room id for WATCH, port for REDIRECT
+    public final char letter;  // guessed letter
+    public final String text;  // clue, word, chat or input text
+    public final String name;  // player the message is about (chat sender, chooser, guesser...)
+    public final String extra; // clue in SNAPSHOT
+    public final long mask;    // word positions revealed by a DELTA, bit i is position i
+    String line;               // text form, cached by TextCodec
+    ByteBuffer frame;          // binary frame, cached by WireCodec.frame
+    ByteBuffer lineBytes;      // text line with its terminator, cached by WireCodec.line
+
+    Message(MessageType type, int code, int value, char letter, String text, String name) {
+        this(type, code, value, letter, text, name, null, 0L);
+    }
+
+    Message(MessageType type, int code, int value, char letter, String text, String name, String extra, long mask) {
+        this.type = type;
+        this.code = code;
+        this.value = value;
+        this.letter = letter;
+        this.text = text;
+        this.name = name;
+        this.extra = extra;
+        this.mask = mask;
+    }
+
+    private static Message of(MessageType type, int code) {
+        return new Message(type, code, 0, '\0', null, null);
+    }
+
+    public static Message prompt(int which) {
+        return of(MessageType.PROMPT, which);
+    }
+
+    public static Message welcome(String name) {
+        return new Message(MessageType.WELCOME, 0, 0, '\0', null, name);
+    }
+
+    public static Message roundStart(String chooser, String guesser) {
+        return new Message(MessageType.ROUND_START, 0, 0, '\0', guesser, chooser);
+    }
+
+    public static Message yourTurn() {
+        return of(MessageType.YOUR_TURN, 0);
+    }
+
+    public static Message clue(String clue) {
+        return new Message(MessageType.CLUE, 0, 0, '\0', clue, null);
+    }
+
+    /** @param revealed true for the chooser, who sees the actual word */
+    public static Message word(String word, boolean revealed) {
+        return new Message(MessageType.WORD, revealed ? 1 : 0, 0, '\0', word, null);
+    }
+
+    public static Message turn(String guesser) {
+        return new Message(MessageType.TURN, 0, 0, '\0', null, guesser);
+    }
+
+    /** @param mine true when echoed back to the player who guessed */
+    public static Message guess(char letter, boolean mine) {
+        return new Message(MessageType.GUESS, mine ? 1 : 0, 0, letter, null, null);
+    }
+
+    public static Message guessResult(int result, char letter, int remainingChances, String word) {
+        return new Message(MessageType.GUESS_RESULT, result, remainingChances, letter, word, null);
+    }
+
+    /** @param word the secret word for GUESSER_LOST; other the opponent's name */
+    public static Message roundEnd(int outcome, String word, String other) {
+        return new Message(MessageType.ROUND_END, outcome, 0, '\0', word, other);
+    }
+
+    public static Message newGame() {
+        return of(MessageType.NEW_GAME, 0);
+    }
+
+    public static Message disconnect(int reason, String other) {
+        return new Message(MessageType.DISCONNECT, reason, 0, '\0', null, other);
+    }
+
+    public static Message chat(String sender, String text) {
+        return new Message(MessageType.CHAT, 0, 0, '\0', text, sender);
+    }
+
+    public static Message notice(int which, String text) {
+        return new Message(MessageType.NOTICE, which, 0, '\0', text, null);
+    }
+
+    public static Message input(String text) {
+        return new Message(MessageType.INPUT, 0, 0, '\0', text, null);
+    }
+
+    /**
+     * Everything a player needs to draw the round in progress.
+     * @param word masked word for the guesser, the secret word for the chooser
+     */
+    public static Message snapshot(int role, String word, String clue, int remainingChances, String guesser) {
+        return new Message(MessageType.SNAPSHOT, role, remainingChances, '\0', word, guesser, clue, 0L);
+    }
+
+    /** Sent by a client that lost track of the round, answered with a SNAPSHOT. */
+    public static Message resync() {
+        return of(MessageType.SNAPSHOT, ROLE_GUESSER);
+    }
+
+    /**
+     * Token of this player's seat. Sent by the server after the welcome; a client that lost its connection
+     * sends it back instead of a name to take the seat again.
+     */
+    public static Message session(String token) {
+        return new Message(MessageType.SESSION, 0, 0, '\0', token, null);
+    }
+
+    /** Asks to watch a room instead of playing, sent instead of a name. Room 0 asks for the server's featured match. */
+    public static Message watch(int room) {
+        return new Message(MessageType.WATCH, 0, room, '\0', null, null);
+    }
+
+    /** Tells a spectator which room it is now watching, and who plays in it. */
+    public static Message watching(int room, String first, String second) {
+        return new Message(MessageType.WATCH, 0, room, '\0', second, first);
+    }
+
+    /**
+     * Sends the client to the server node that holds its match. The client connects to host:port and sends
+     * the ticket there the way it would resume a session.
+     */
+    public static Message redirect(String host, int port, String ticket) {
+        return new Message(MessageType.REDIRECT, 0, port, '\0', ticket, host);
+    }
+
+    /** Heartbeat: asks the other side to show it is still there. */
+    public static Message ping() {
+        return of(MessageType.PING, 0);
+    }
+
+    /** Answer to a {@link #ping()}. */
+    public static Message pong() {
+        return of(MessageType.PONG, 0);
+    }
+
+    /**
+     * What one guess changed.
+     * @param revealed bit i set for every position the letter uncovered
+     * @param letters the uncovered characters in position order, they keep the case of the secret word
+     */
+    public static Message delta(int result, char letter, int remainingChances, long revealed, String letters) {
+        return new Message(MessageType.DELTA, result, remainingChances, letter, letters, null, null, revealed);
+    }
+}
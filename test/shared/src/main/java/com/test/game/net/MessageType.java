@@ -0,0 +1,49 @@
+package com.test.game.net;
+
+/**
+ * Every kind of message the server and the client exchange.
+ * The code is the type byte of a binary frame, so existing codes must never change.
+ */
+public enum MessageType {
+    PROMPT(1),        // server asks for input (name, secret, clue, letter, play again)
+    WELCOME(2),       // name accepted
+    ROUND_START(3),   // chooser has set the word, guesser starts
+    YOUR_TURN(4),     // sent to the guesser once per round
+    CLUE(5),
+    WORD(6),          // masked word for the guesser, full word for the chooser
+    TURN(7),          // tells the chooser who is guessing
+    GUESS(8),         // letter sent by the guesser, echoed to both players
+    GUESS_RESULT(9),  // correct, incorrect or already guessed
+    ROUND_END(10),
+    NEW_GAME(11),
+    DISCONNECT(12),
+    CHAT(13),
+    NOTICE(14),       // anything else worth showing to the player
+    INPUT(15),        // client -> server: name, secret, clue or play again answer
+    SNAPSHOT(16),     // full round state, on round start and on resync (an empty one from a client asks for it)
+    DELTA(17),        // what one guess changed: letter, result, revealed positions, chances left
+    SESSION(18),      // token to resume with after a dropped connection; sent back by a client to resume
+    PING(19),         // heartbeat, either side sends it when the other has been quiet; binary connections only
+    PONG(20),         // answer to a PING
+    WATCH(21),        // client -> server: watch a room instead of playing; server -> client: now watching it
+    REDIRECT(22);     // the match is on another server node: connect there and send the ticket as a SESSION
+
+    private static final MessageType[] BY_CODE = new MessageType[23];
+
+    static {
+        for (MessageType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    public final int code;
+
+    MessageType(int code) {
+        this.code = code;
+    }
+
+    /** Returns the type for a frame's type byte, or null if this build does not know it. */
+    public static MessageType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
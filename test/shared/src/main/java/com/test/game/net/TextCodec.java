@@ -0,0 +1,269 @@
+package com.test.game.net;
+
+import java.util.Arrays;
+
+/**
+ * The original line based protocol: every message is one line of English text.
+ * Servers still use it for clients that did not ask for binary frames, and clients use it
+ * to read servers that do not offer them.
+ */
+public final class TextCodec {
+    /** Appended to the name prompt by servers that speak binary; sent back by clients that want it. */
+    public static final String OFFER = "@proto:binary/1";
+    /** Last text line the server sends before switching the connection to binary frames. */
+    public static final String ACCEPT = "@proto:ok";
+    /** Prefix of chat lines in both directions. */
+    public static final String CHAT = "@chat:";
+    /** Input line asking the server to send the round state again. */
+    public static final String RESYNC = "@resync";
+    /** Server line carrying a session token, followed by the token. */
+    public static final String SESSION = "@session:";
+    /** Client line asking to watch a match instead of entering a name, optionally followed by a room id. */
+    public static final String WATCH = "@watch";
+    /** Client line asking to play against the computer while waiting for an opponent. */
+    public static final String BOT = "@bot";
+    /**
+     * Chooser input asking the server for a word from its dictionary, optionally followed by ':' and a difficulty
+     * (easy, medium, hard), a length, or both: {@code @random:hard:7}.
+     */
+    public static final String RANDOM = "@random";
+    /** Client line asking for the best players, answered with one multi-line notice. */
+    public static final String TOP = "@top";
+    /** Client line asking to resume a session instead of entering a name, followed by the token. */
+    public static final String RESUME = "@resume:";
+
+    private TextCodec() {
+    }
+
+    /** Returns the text line for a message (without line terminator). */
+    public static String format(Message m) {
+        String line = m.line;
+        if (line == null) {
+            line = render(m);
+            m.line = line;
+        }
+        return line;
+    }
+
+    private static String render(Message m) {
+        switch (m.type) {
+            case PROMPT:
+                switch (m.code) {
+                    case Message.PROMPT_NAME: return "Enter your name:";
+                    case Message.PROMPT_SECRET: return "Enter the secret word (or " + RANDOM + "):";
+                    case Message.PROMPT_CLUE: return "Enter Clue for the word:";
+                    case Message.PROMPT_LETTER: return "Enter a letter:";
+                    default: return "Do you wanna play another game?";
+                }
+            case WELCOME:
+                return "Welcome, " + m.name + "!";
+            case ROUND_START:
+                return m.name + " has entered the secret word. " + m.text + " starts guessing.";
+            case YOUR_TURN:
+                return "It's your turn to guess.";
+            case CLUE:
+                return "Clue: " + m.text;
+            case WORD:
+                return (m.code == 1 ? "Word: " : "Current word: ") + m.text;
+            case TURN:
+                return m.name + " is guessing...";
+            case GUESS:
+                return (m.code == 1 ? "You guessed: " : "Guessed letter: ") + m.letter;
+            case GUESS_RESULT:
+                switch (m.code) {
+                    case Message.RESULT_CORRECT: return "Correct guess! Guessed Letter: " + m.letter + " Updated word: " + m.text;
+                    case Message.RESULT_WRONG: return "Incorrect guess! Guessed Letter: " + m.letter + "  Remaining chances: " + m.value;
+                    default: return "The letter " + m.letter + " has already been guessed";
+                }
+            case ROUND_END:
+                switch (m.code) {
+                    case Message.GUESSER_WON: return "Congratulations! You won the game!!!";
+                    case Message.CHOOSER_LOST: return "You lose, " + m.name + " won the game";
+                    case Message.GUESSER_LOST: return "Game over! The word was: " + m.text;
+                    case Message.WATCHED_WON: return m.name + " found the word: " + m.text;
+                    case Message.WATCHED_LOST: return m.name + " is out of guesses, the word was: " + m.text;
+                    default: return "Congratulations! " + m.name + " is out of guesses, You win!!!";
+                }
+            case NEW_GAME:
+                return "Starting New Game...";
+            case DISCONNECT:
+                switch (m.code) {
+                    case Message.DECLINED: return m.name + " doesn't want to play, disconnecting from server...";
+                    case Message.LEFT: return m.name + " left the game, disconnecting from server...";
+                    default: return "Disconnecting from server...";
+                }
+            case CHAT:
+                return CHAT + " [" + m.name + "] " + m.text;
+            case SESSION:
+                return SESSION + m.text;
+            case WATCH:
+                return "Watching room " + m.value + ": " + m.name + " vs " + m.text;
+            case REDIRECT:
+                return "Your match is on " + m.name + ":" + m.value;
+            case SNAPSHOT:
+                return (m.code == Message.ROLE_CHOOSER ? "Word: " : "Current word: ") + m.text;
+            case DELTA:
+                // a delta only knows the letters it uncovered, the receiver adds the word if it wants it
+                switch (m.code) {
+                    case Message.RESULT_CORRECT: return "Correct guess! Guessed Letter: " + m.letter;
+                    case Message.RESULT_WRONG: return "Incorrect guess! Guessed Letter: " + m.letter + "  Remaining chances: " + m.value;
+                    default: return "The letter " + m.letter + " has already been guessed";
+                }
+            case NOTICE:
+                switch (m.code) {
+                    case Message.NOTICE_INVALID_GUESS: return "Invalid guess! Enter a single letter.";
+                    case Message.NOTICE_SLOW_DOWN: return "You are chatting too fast, that message was not sent.";
+                    default: return m.text;
+                }
+            default:
+                return m.text;
+        }
+    }
+
+    /** Returns the line a client sends for one of its inputs (INPUT, GUESS, CHAT, a resync, resume or watch request). */
+    public static String formatInput(Message m) {
+        switch (m.type) {
+            case CHAT:
+                return CHAT + m.text;
+            case SNAPSHOT:
+                return RESYNC;
+            case SESSION:
+                return RESUME + m.text;
+            case WATCH:
+                return m.value > 0 ? WATCH + ":" + m.value : WATCH;
+            case GUESS:
+                return String.valueOf(m.letter);
+            default:
+                return m.text;
+        }
+    }
+
+    /**
+     * Classifies a server line into a message, lines nothing matches become a plain NOTICE.
+     * Almost every line starts with fixed text, so the line's first character picks the few prefixes worth trying;
+     * only lines that start with a player's name go on to the checks inside the line.
+     */
+    public static Message parse(String msg) {
+        Message m = classify(msg);
+        m.line = msg; // show exactly what the server sent
+        return m;
+    }
+
+    /** Turns a line starting with a known prefix into its message, or null to let the other checks have it. */
+    private interface Rule {
+        Message parse(String line);
+    }
+
+    // Prefixes and their rules by the prefix's first character, in the order they are tried
+    private static final String[][] PREFIXES = new String[128][];
+    private static final Rule[][] RULES = new Rule[128][];
+
+    static {
+        rule(CHAT, msg -> {
+            String chat = msg.substring(CHAT.length());
+            int open = chat.indexOf('['), close = chat.indexOf("] ");
+            if (open >= 0 && close > open) {
+                return Message.chat(chat.substring(open + 1, close), chat.substring(close + 2));
+            }
+            return Message.chat("", chat.trim());
+        });
+        rule(SESSION, msg -> Message.session(msg.substring(SESSION.length())));
+        rule("Enter your name", msg -> Message.prompt(Message.PROMPT_NAME));
+        rule("Welcome,", msg -> Message.welcome(msg.substring("Welcome,".length()).replace("!", "").trim()));
+        rule("Enter the secret word", msg -> Message.prompt(Message.PROMPT_SECRET));
+        rule("Enter Clue", msg -> Message.prompt(Message.PROMPT_CLUE));
+        rule("Clue:", msg -> Message.clue(msg.substring("Clue:".length()).trim()));
+        rule("Current word:", msg -> Message.word(msg.substring("Current word:".length()).trim(), false));
+        rule("Word:", msg -> Message.word(msg.substring("Word:".length()).trim(), true));
+        rule("It's your turn to guess.", msg -> Message.yourTurn());
+        rule("Enter a letter:", msg -> Message.prompt(Message.PROMPT_LETTER));
+        rule("Correct guess", msg -> Message.guessResult(Message.RESULT_CORRECT, letterAfter(msg, "Guessed Letter: "), 0, after(msg, "Updated word: ")));
+        rule("Incorrect guess", msg -> {
+            int remaining = 0;
+            try {
+                remaining = Integer.parseInt(after(msg, "Remaining chances: "));
+            } catch (NumberFormatException e) {
+                // keep 0, the line itself is still shown
+            }
+            return Message.guessResult(Message.RESULT_WRONG, letterAfter(msg, "Guessed Letter: "), remaining, null);
+        });
+        rule("The letter ", msg -> msg.contains("already been guessed") ? Message.guessResult(Message.RESULT_ALREADY, letterAfter(msg, "The letter "), 0, null) : null);
+        rule("Congratulations! You won", msg -> Message.roundEnd(Message.GUESSER_WON, null, null));
+        rule("You lose, ", msg -> Message.roundEnd(Message.CHOOSER_LOST, null, between(msg, "You lose, ", " won the game")));
+        rule("Game over!", msg -> Message.roundEnd(Message.GUESSER_LOST, after(msg, "The word was: "), null));
+        rule("Do you wanna play another game?", msg -> Message.prompt(Message.PROMPT_PLAY_AGAIN));
+        rule("Starting New Game", msg -> Message.newGame());
+        rule("Disconnecting from server", msg -> Message.disconnect(Message.BYE, null));
+        rule("Rating: ", msg -> Message.notice(Message.NOTICE_RANK, msg));
+        rule("Top players", msg -> Message.notice(Message.NOTICE_LEADERBOARD, msg));
+        rule("You are chatting too fast", msg -> Message.notice(Message.NOTICE_SLOW_DOWN, msg));
+        rule("You guessed: ", msg -> Message.guess(msg.charAt(msg.length() - 1), true));
+        rule("Guessed letter: ", msg -> Message.guess(msg.charAt(msg.length() - 1), false));
+    }
+
+    private static void rule(String prefix, Rule rule) {
+        char first = prefix.charAt(0);
+        String[] prefixes = PREFIXES[first] == null ? new String[0] : PREFIXES[first];
+        Rule[] rules = RULES[first] == null ? new Rule[0] : RULES[first];
+        PREFIXES[first] = Arrays.copyOf(prefixes, prefixes.length + 1);
+        PREFIXES[first][prefixes.length] = prefix;
+        RULES[first] = Arrays.copyOf(rules, rules.length + 1);
+        RULES[first][rules.length] = rule;
+    }
+
+    private static Message classify(String msg) {
+        char first = msg.isEmpty() ? 0 : msg.charAt(0);
+        if (first < PREFIXES.length && PREFIXES[first] != null) {
+            String[] prefixes = PREFIXES[first];
+            for (int i = 0; i < prefixes.length; i++) {
+                if (!msg.startsWith(prefixes[i])) continue;
+                Message m = RULES[first][i].parse(msg);
+                if (m != null) return m;
+            }
+        }
+        // Lines starting with a name, and wordings of older servers
+        if (msg.endsWith("is guessing...")) {
+            return Message.turn(msg.substring(0, msg.length() - " is guessing...".length()).trim());
+        } else if (msg.contains("already been guessed")) {
+            return Message.guessResult(Message.RESULT_ALREADY, letterAfter(msg, "The letter "), 0, null);
+        } else if (msg.contains(" has entered the secret word. ")) {
+            return Message.roundStart(between(msg, "", " has entered the secret word. "), between(msg, " has entered the secret word. ", " starts guessing."));
+        }
+        if (containsIgnoreCase(msg, "you won")) {
+            return Message.roundEnd(Message.GUESSER_WON, null, null);
+        } else if (containsIgnoreCase(msg, "you lose")) {
+            return Message.roundEnd(Message.CHOOSER_LOST, null, between(msg, "You lose, ", " won the game"));
+        } else if (containsIgnoreCase(msg, "game over")) {
+            return Message.roundEnd(Message.GUESSER_LOST, after(msg, "The word was: "), null);
+        } else if (containsIgnoreCase(msg, "out of guesses, you win")) {
+            return Message.roundEnd(Message.CHOOSER_WON, null, between(msg, "Congratulations! ", " is out of guesses"));
+        } else if (containsIgnoreCase(msg, "disconnecting from server")) {
+            return Message.disconnect(Message.BYE, null);
+        } else if (containsIgnoreCase(msg, "wait for your turn")) {
+            return Message.notice(Message.NOTICE_WAIT_TURN, msg);
+        }
+        return Message.notice(Message.NOTICE_TEXT, msg);
+    }
+
+    private static boolean containsIgnoreCase(String msg, String lowerCase) {
+        for (int i = 0; i + lowerCase.length() <= msg.length(); i++) {
+            if (msg.regionMatches(true, i, lowerCase, 0, lowerCase.length())) return true;
+        }
+        return false;
+    }
+
+    private static String after(String msg, String marker) {
+        int i = msg.indexOf(marker);
+        return i < 0 ? "" : msg.substring(i + marker.length()).trim();
+    }
+
+    private static String between(String msg, String start, String end) {
+        int i = msg.indexOf(start), j = msg.indexOf(end, Math.max(i, 0) + start.length());
+        return i < 0 || j < 0 ? "" : msg.substring(i + start.length(), j);
+    }
+
+    private static char letterAfter(String msg, String marker) {
+        int i = msg.indexOf(marker) + marker.length();
+        return i >= marker.length() && i < msg.length() ? msg.charAt(i) : '\0';
+    }
+}
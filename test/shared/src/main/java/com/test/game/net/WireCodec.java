@@ -0,0 +1,308 @@
+package com.test.game.net;
+
+import java.io.*;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Binary frames: a 2 byte big-endian length, then the body (type byte followed by the type's fields).
+ * Strings are a 2 byte length plus UTF-8, letters are a 2 byte char, small numbers one byte,
+ * position masks 7 bits per byte with the high bit set on every byte but the last.
+ */
+public final class WireCodec {
+    public static final int HEADER_BYTES = 2;
+    public static final int MAX_BODY = 0xFFFF;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private WireCodec() {
+    }
+
+    /** Returns a buffer holding the complete frame, ready to be written. */
+    public static ByteBuffer encode(Message m) {
+        byte[] text = bytes(m.text), name = bytes(m.name), extra = bytes(m.extra);
+        // type, code, value, letter, mask, string lengths, strings
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + 4 + 2 + 10 + 6 + text.length + name.length + extra.length);
+        frame.position(HEADER_BYTES);
+        frame.put((byte) m.type.code);
+        switch (m.type) {
+            case PROMPT:
+                frame.put((byte) m.code);
+                break;
+            case WELCOME:
+            case TURN:
+                putString(frame, name);
+                break;
+            case ROUND_START:
+            case CHAT:
+                putString(frame, name);
+                putString(frame, text);
+                break;
+            case CLUE:
+            case INPUT:
+            case SESSION:
+                putString(frame, text);
+                break;
+            case WORD:
+            case NOTICE:
+                frame.put((byte) m.code);
+                putString(frame, text);
+                break;
+            case GUESS:
+                frame.put((byte) m.code);
+                frame.putChar(m.letter);
+                break;
+            case GUESS_RESULT:
+                frame.put((byte) m.code);
+                frame.putChar(m.letter);
+                frame.put((byte) m.value);
+                putString(frame, text);
+                break;
+            case ROUND_END:
+                frame.put((byte) m.code);
+                putString(frame, text);
+                putString(frame, name);
+                break;
+            case DISCONNECT:
+                frame.put((byte) m.code);
+                putString(frame, name);
+                break;
+            case WATCH:
+                frame.putInt(m.value);
+                putString(frame, name);
+                putString(frame, text);
+                break;
+            case REDIRECT:
+                frame.putShort((short) m.value);
+                putString(frame, name);
+                putString(frame, text);
+                break;
+            case SNAPSHOT:
+                frame.put((byte) m.code);
+                frame.put((byte) m.value);
+                putString(frame, text);
+                putString(frame, extra);
+                putString(frame, name);
+                break;
+            case DELTA:
+                frame.put((byte) m.code);
+                frame.putChar(m.letter);
+                frame.put((byte) m.value);
+                putMask(frame, m.mask);
+                putString(frame, text);
+                break;
+            default: // YOUR_TURN, NEW_GAME, PING, PONG: the type says it all
+                break;
+        }
+        int body = frame.position() - HEADER_BYTES;
+        if (body > MAX_BODY) throw new IllegalArgumentException("Message too long: " + body + " bytes");
+        frame.putShort(0, (short) body);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes one frame body (everything after the length).
+     * Returns null for a type this build does not know, so newer peers can add types.
+     * Throws ProtocolException for a body too short for its type's fields, the peer should then be dropped.
+     */
+    public static Message decode(ByteBuffer body) throws ProtocolException {
+        need(body, 1);
+        MessageType type = MessageType.fromCode(body.get() & 0xFF);
+        if (type == null) return null;
+        switch (type) {
+            case PROMPT:
+                need(body, 1);
+                return Message.prompt(body.get());
+            case WELCOME:
+                return Message.welcome(getString(body));
+            case TURN:
+                return Message.turn(getString(body));
+            case ROUND_START: {
+                String chooser = getString(body);
+                return Message.roundStart(chooser, getString(body));
+            }
+            case CHAT: {
+                String sender = getString(body);
+                return Message.chat(sender, getString(body));
+            }
+            case CLUE:
+                return Message.clue(getString(body));
+            case INPUT:
+                return Message.input(getString(body));
+            case SESSION:
+                return Message.session(getString(body));
+            case WORD: {
+                need(body, 1);
+                boolean revealed = body.get() == 1;
+                return Message.word(getString(body), revealed);
+            }
+            case NOTICE: {
+                need(body, 1);
+                int which = body.get();
+                return Message.notice(which, getString(body));
+            }
+            case GUESS: {
+                need(body, 3);
+                boolean mine = body.get() == 1;
+                return Message.guess(body.getChar(), mine);
+            }
+            case GUESS_RESULT: {
+                need(body, 4);
+                int result = body.get();
+                char letter = body.getChar();
+                int remaining = body.get();
+                return Message.guessResult(result, letter, remaining, getString(body));
+            }
+            case ROUND_END: {
+                need(body, 1);
+                int outcome = body.get();
+                String word = getString(body);
+                return Message.roundEnd(outcome, word, getString(body));
+            }
+            case DISCONNECT: {
+                need(body, 1);
+                int reason = body.get();
+                return Message.disconnect(reason, getString(body));
+            }
+            case SNAPSHOT: {
+                need(body, 2);
+                int role = body.get();
+                int remaining = body.get();
+                String word = getString(body);
+                String clue = getString(body);
+                return Message.snapshot(role, word, clue, remaining, getString(body));
+            }
+            case DELTA: {
+                need(body, 4);
+                int result = body.get();
+                char letter = body.getChar();
+                int remaining = body.get();
+                long revealed = getMask(body);
+                return Message.delta(result, letter, remaining, revealed, getString(body));
+            }
+            case YOUR_TURN:
+                return Message.yourTurn();
+            case NEW_GAME:
+                return Message.newGame();
+            case WATCH: {
+                need(body, 4);
+                int room = body.getInt();
+                String first = getString(body);
+                return Message.watching(room, first, getString(body));
+            }
+            case REDIRECT: {
+                need(body, 2);
+                int port = body.getShort() & 0xFFFF;
+                String host = getString(body);
+                return Message.redirect(host, port, getString(body));
+            }
+            case PING:
+                return Message.ping();
+            case PONG:
+                return Message.pong();
+            default:
+                return null;
+        }
+    }
+
+    /** Blocking read of the next frame of a known type. Returns null at end of stream. */
+    public static Message readFrame(DataInputStream in) throws IOException {
+        while (true) {
+            int length;
+            try {
+                length = in.readUnsignedShort();
+            } catch (EOFException e) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            Message m = decode(ByteBuffer.wrap(body));
+            if (m != null) return m;
+        }
+    }
+
+    /**
+     * The frame of a message sent to many connections: encoded on the first call, every call returns its own
+     * view of the same bytes. Call it from the thread that built the message.
+     */
+    public static ByteBuffer frame(Message m) {
+        ByteBuffer frame = m.frame;
+        if (frame == null) {
+            frame = encode(m);
+            m.frame = frame;
+        }
+        return frame.duplicate();
+    }
+
+    /** The text line of a message with its line terminator, shared like {@link #frame(Message)}. */
+    public static ByteBuffer line(Message m) {
+        ByteBuffer line = m.lineBytes;
+        if (line == null) {
+            line = ByteBuffer.wrap((TextCodec.format(m) + "\n").getBytes(Charset.defaultCharset()));
+            m.lineBytes = line;
+        }
+        return line.duplicate();
+    }
+
+    /**
+     * Blocking read of one text line, byte by byte from a buffered stream, so nothing after the line is consumed
+     * and the stream can switch to frames right after. Returns null at end of stream.
+     */
+    public static String readLine(InputStream in) throws IOException {
+        byte[] line = new byte[128]; // a plain array: a ByteArrayOutputStream takes a lock for every byte
+        int length = 0;
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) return length == 0 ? null : new String(line, 0, length, Charset.defaultCharset());
+            if (length == line.length) line = Arrays.copyOf(line, length * 2);
+            line[length++] = (byte) b;
+        }
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, Charset.defaultCharset());
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(UTF8);
+    }
+
+    private static void putString(ByteBuffer frame, byte[] s) {
+        frame.putShort((short) s.length);
+        frame.put(s);
+    }
+
+    private static void putMask(ByteBuffer frame, long mask) {
+        while ((mask & ~0x7FL) != 0) {
+            frame.put((byte) ((mask & 0x7F) | 0x80));
+            mask >>>= 7;
+        }
+        frame.put((byte) mask);
+    }
+
+    private static long getMask(ByteBuffer body) throws ProtocolException {
+        long mask = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            need(body, 1);
+            byte b = body.get();
+            mask |= (long) (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        return mask;
+    }
+
+    private static String getString(ByteBuffer body) throws ProtocolException {
+        need(body, 2);
+        int length = body.getShort() & 0xFFFF;
+        need(body, length);
+        String s = new String(body.array(), body.arrayOffset() + body.position(), length, UTF8);
+        body.position(body.position() + length);
+        return s;
+    }
+
+    private static void need(ByteBuffer body, int bytes) throws ProtocolException {
+        if (body.remaining() < bytes) {
+            throw new ProtocolException("Frame too short: " + body.remaining() + " bytes left, " + bytes + " needed");
+        }
+    }
+}